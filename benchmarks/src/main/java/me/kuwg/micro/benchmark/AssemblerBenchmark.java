@@ -0,0 +1,52 @@
+package me.kuwg.micro.benchmark;
+
+import me.kuwg.micro.assembler.MicroAssembler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MicroAssembler#assemble()} on large generated sources.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssemblerBenchmark {
+    private static final String[] LINES = {
+            "load R0 42               ; byte constant",
+            "load R10 100000",
+            "load R20 3.5D",
+            "load R30 \"hello world\"",
+            "add R0 R10 R40",
+            "mul R40 2 R40",
+            "store 16 R40",
+            "fetch 16 R50",
+            "st32 64 R10",
+            "ld32 64 R60",
+            "memcpy 0 128 32",
+            "call PRINTLN R50",
+    };
+
+    @Param({"1000", "100000"})
+    public int lines;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append(LINES[i % LINES.length]).append('\n');
+        }
+        builder.append("halt\n");
+        source = builder.toString();
+    }
+
+    @Benchmark
+    public byte[] assemble() {
+        return new MicroAssembler(source).assemble();
+    }
+}
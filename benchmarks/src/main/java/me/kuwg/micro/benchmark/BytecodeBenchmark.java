@@ -0,0 +1,71 @@
+package me.kuwg.micro.benchmark;
+
+import me.kuwg.micro.assembler.MicroAssembler;
+import me.kuwg.micro.bytecode.Bytecode;
+import me.kuwg.micro.bytecode.Program;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_MEMORY;
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_REGISTERS;
+
+/**
+ * Measures the primitive reads of the reader the virtual machine uses, {@link Program#reader()}, over a verified
+ * program of about 64 KB, rewinding the reader before it runs off the end.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BytecodeBenchmark {
+    private static final int LINES = 5000;
+
+    private Bytecode bytecode;
+    private int end;
+
+    @Setup
+    public void setup() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            source.append("load R0 ").append(i * 0x9E3779B97F4A7C15L).append("L\n");
+        }
+        source.append("halt\n");
+
+        byte[] bytes = new MicroAssembler(source.toString()).assemble();
+        bytecode = Program.load(bytes, DEFAULT_REGISTERS, DEFAULT_MEMORY).reader();
+        end = bytes.length - Long.BYTES;
+    }
+
+    private void rewind() {
+        if (bytecode.readerIndex() > end) {
+            bytecode.readerIndex(0);
+        }
+    }
+
+    @Benchmark
+    public byte readByte() {
+        rewind();
+        return bytecode.readByte();
+    }
+
+    @Benchmark
+    public int readInt() {
+        rewind();
+        return bytecode.readInt();
+    }
+
+    @Benchmark
+    public long readLong() {
+        rewind();
+        return bytecode.readLong();
+    }
+
+    @Benchmark
+    public double readDouble() {
+        rewind();
+        return bytecode.readDouble();
+    }
+}
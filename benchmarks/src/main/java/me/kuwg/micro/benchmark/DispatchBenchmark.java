@@ -0,0 +1,86 @@
+package me.kuwg.micro.benchmark;
+
+import me.kuwg.micro.assembler.MicroAssembler;
+import me.kuwg.micro.vm.MicroVirtualMachine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_MEMORY;
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_REGISTERS;
+
+/**
+ * Measures the interpreter dispatch loop by running small guest loops to completion. Each operation is one
+ * whole program run, and the guest instructions per second are reported as the {@code instructions} counter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class DispatchBenchmark {
+    private static final String ARITHMETIC = """
+            load R0 0
+            LOOP:
+            add R0 1 R0
+            sub R0 10000 R10
+            jnz R10 LOOP
+            halt
+            """;
+
+    private static final String MEMORY = """
+            load R0 0
+            LOOP:
+            store 0 R0
+            fetch 0 R20
+            add R20 1 R0
+            sub R0 10000 R10
+            jnz R10 LOOP
+            halt
+            """;
+
+    private static final String RAW_MEMORY = """
+            load R0 0
+            LOOP:
+            st32 0 R0
+            ld32 0 R20
+            add R20 1 R0
+            sub R0 10000 R10
+            jnz R10 LOOP
+            halt
+            """;
+
+    @Param({"arithmetic", "memory", "raw-memory"})
+    public String program;
+
+    private MicroVirtualMachine vm;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Retired {
+        public long instructions;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String source = switch (program) {
+            case "arithmetic" -> ARITHMETIC;
+            case "memory" -> MEMORY;
+            case "raw-memory" -> RAW_MEMORY;
+            default -> throw new IllegalArgumentException("Unknown program: " + program);
+        };
+
+        byte[] bytecode = new MicroAssembler(source).assemble();
+        vm = new MicroVirtualMachine(bytecode.length, DEFAULT_MEMORY, DEFAULT_REGISTERS);
+        vm.load(bytecode);
+    }
+
+    @Benchmark
+    public int run(Retired retired) {
+        vm.reset();
+        int status = vm.execute();
+        retired.instructions += vm.instructionsRetired();
+        return status;
+    }
+}
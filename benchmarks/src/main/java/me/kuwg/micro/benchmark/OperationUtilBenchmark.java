@@ -0,0 +1,68 @@
+package me.kuwg.micro.benchmark;
+
+import me.kuwg.micro.util.OperationUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the boxed arithmetic of {@link OperationUtil} across operand type combinations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OperationUtilBenchmark {
+
+    @Param({"byte+byte", "int+int", "long+long", "double+double", "byte+int", "int+long", "int+double"})
+    public String types;
+
+    private Object left;
+    private Object right;
+    private Object text;
+
+    @Setup
+    public void setup() {
+        String[] operands = types.split("\\+");
+        left = value(operands[0], true);
+        right = value(operands[1], false);
+        text = "total: ";
+    }
+
+    private static Object value(String type, boolean left) {
+        return switch (type) {
+            case "byte" -> left ? (byte) 100 : (byte) 3;
+            case "int" -> left ? 100_000 : 3;
+            case "long" -> left ? 10_000_000_000L : 3L;
+            case "double" -> left ? 100.5 : 3.0;
+            default -> throw new IllegalArgumentException("Unknown type: " + type);
+        };
+    }
+
+    @Benchmark
+    public Object add() {
+        return OperationUtil.add(left, right);
+    }
+
+    @Benchmark
+    public Object sub() {
+        return OperationUtil.sub(left, right);
+    }
+
+    @Benchmark
+    public Object mul() {
+        return OperationUtil.mul(left, right);
+    }
+
+    @Benchmark
+    public Object div() {
+        return OperationUtil.div(left, right);
+    }
+
+    @Benchmark
+    public Object concat() {
+        return OperationUtil.add(text, left);
+    }
+}
@@ -0,0 +1,75 @@
+package me.kuwg.micro.benchmark;
+
+import me.kuwg.micro.vm.VirtualMemory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tagged {@link VirtualMemory#store}/{@link VirtualMemory#load} per value type, next to the untagged
+ * raw accessors for the same widths.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VirtualMemoryBenchmark {
+    private static final int ADDRESS = 64;
+
+    @Param({"byte", "int", "long", "double", "string", "boolean"})
+    public String type;
+
+    private VirtualMemory memory;
+    private Object value;
+
+    @Setup
+    public void setup() {
+        memory = new VirtualMemory(4096);
+        value = switch (type) {
+            case "byte" -> (byte) 42;
+            case "int" -> 42_000;
+            case "long" -> 42_000_000_000L;
+            case "double" -> 42.5;
+            case "string" -> "The quick brown fox jumps over the lazy dog";
+            case "boolean" -> true;
+            default -> throw new IllegalArgumentException("Unknown type: " + type);
+        };
+        memory.store(ADDRESS, value);
+    }
+
+    @Benchmark
+    public void store() {
+        memory.store(ADDRESS, value);
+    }
+
+    @Benchmark
+    public Object load() {
+        return memory.load(ADDRESS);
+    }
+
+    @Benchmark
+    public Object storeAndLoad() {
+        memory.store(ADDRESS, value);
+        return memory.load(ADDRESS);
+    }
+
+    @Benchmark
+    public int rawInt() {
+        memory.putInt(ADDRESS, 42_000);
+        return memory.getInt(ADDRESS);
+    }
+
+    @Benchmark
+    public long rawLong() {
+        memory.putLong(ADDRESS, 42_000_000_000L);
+        return memory.getLong(ADDRESS);
+    }
+
+    @Benchmark
+    public double rawDouble() {
+        memory.putDouble(ADDRESS, 42.5);
+        return memory.getDouble(ADDRESS);
+    }
+}
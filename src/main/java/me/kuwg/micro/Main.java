@@ -1,12 +1,32 @@
 package me.kuwg.micro;
 
+import me.kuwg.micro.assembler.IncrementalBuilder;
+import me.kuwg.micro.assembler.Linker;
 import me.kuwg.micro.assembler.MicroAssembler;
+import me.kuwg.micro.assembler.ObjectModule;
+import me.kuwg.micro.batch.BatchRunner;
+import me.kuwg.micro.bench.MacroBenchmark;
+import me.kuwg.micro.bytecode.Decoder;
+import me.kuwg.micro.bytecode.Instruction;
+import me.kuwg.micro.bytecode.VerifyException;
+import me.kuwg.micro.disassembler.CostAnalyzer;
+import me.kuwg.micro.disassembler.Disassembler;
+import me.kuwg.micro.profiler.Profiler;
+import me.kuwg.micro.server.MicroClient;
+import me.kuwg.micro.server.MicroServer;
+import me.kuwg.micro.trace.TraceDump;
+import me.kuwg.micro.trace.Tracer;
 import me.kuwg.micro.vm.MicroVirtualMachine;
 
 import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static me.kuwg.micro.constants.Constants.DefaultConstants.*;
 
@@ -39,12 +59,90 @@ public class Main {
                 compile(args[1], outputFile);
                 break;
             }
+            case "assemble": {
+                if (args.length < 2) {
+                    System.err.println("Please provide an input .masm file to assemble.");
+                    System.exit(1);
+                }
+                String outputFile = args.length > 2 ? args[2]
+                        : IncrementalBuilder.objectFile(Paths.get(args[1])).toString();
+                assemble(args[1], outputFile);
+                break;
+            }
+            case "link": {
+                if (args.length < 3) {
+                    System.err.println("Please provide an output file and the object files to link.");
+                    System.exit(1);
+                }
+                link(args[1], Arrays.copyOfRange(args, 2, args.length));
+                break;
+            }
+            case "build": {
+                if (args.length < 3) {
+                    System.err.println("Please provide an output file and the .masm files to build.");
+                    System.exit(1);
+                }
+                build(args[1], Arrays.copyOfRange(args, 2, args.length));
+                break;
+            }
+            case "disassemble": {
+                if (args.length < 2) {
+                    System.err.println("Please provide a compiled file to disassemble.");
+                    System.exit(1);
+                }
+                if (args.length > 2) {
+                    disassemble(args[1], args[2], StandardOpenOption.TRUNCATE_EXISTING);
+                } else {
+                    disassemble(args[1], getDefaultOutputFileD(args[1]), StandardOpenOption.CREATE_NEW);
+                }
+                break;
+            }
             case "run":{
                 if (args.length < 2) {
                     System.err.println("Please provide an input .masm file to run.");
                     System.exit(1);
                 }
-                run(args[1]);
+                run(args[1], parseProfiler(args), parseTracer(args));
+                break;
+            }
+            case "run-all": {
+                if (args.length < 2) {
+                    System.err.println("Please provide a directory of programs to run.");
+                    System.exit(1);
+                }
+                String output = args.length > 2 && !args[2].startsWith("--") ? args[2] : args[1];
+                runAll(args[1], output, args);
+                break;
+            }
+            case "bench": {
+                if (args.length < 2) {
+                    System.err.println("Please provide a .masm file or a directory of them to benchmark.");
+                    System.exit(1);
+                }
+                int iterations = args.length > 2 ? parseInt(args[2], "iterations", 1) : 10;
+                int warmup = args.length > 3 ? parseInt(args[3], "warmup", 0) : 5;
+                bench(args[1], iterations, warmup);
+                break;
+            }
+            case "trace-dump": {
+                if (args.length < 2) {
+                    System.err.println("Please provide a trace file to dump.");
+                    System.exit(1);
+                }
+                long limit = args.length > 2 ? parseLong(args[2], "limit", 0) : Long.MAX_VALUE;
+                traceDump(args[1], limit);
+                break;
+            }
+            case "serve": {
+                serve(socketPath(args, 1));
+                break;
+            }
+            case "client": {
+                if (args.length < 2) {
+                    System.err.println("Please provide an input file to run on the server.");
+                    System.exit(1);
+                }
+                client(args[1], socketPath(args, 2));
                 break;
             }
             case "help": {
@@ -66,9 +164,12 @@ public class Main {
             MicroVirtualMachine machine = new MicroVirtualMachine(bytecode.length, DEFAULT_MEMORY, DEFAULT_REGISTERS);
             machine.load(bytecode);
             machine.start();
+            machine.join();
         } catch (IOException e) {
             System.err.println("Error reading the file: " + e.getMessage());
             System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -84,18 +185,289 @@ public class Main {
         }
     }
 
-    private static void run(String inputFile) {
+    private static void assemble(String inputFile, String outputFile) {
+        try {
+            Path input = Paths.get(inputFile);
+            String program = Files.readString(input);
+            ObjectModule module = new MicroAssembler(program).assembleObject(IncrementalBuilder.moduleName(input));
+            module.write(Paths.get(outputFile));
+            System.out.println("Assembly successful. Object module written to " + outputFile);
+        } catch (IOException e) {
+            System.err.println("Error reading or writing the file: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void link(String outputFile, String[] inputFiles) {
+        try {
+            List<ObjectModule> modules = new ArrayList<>();
+            for (String inputFile : inputFiles) {
+                modules.add(ObjectModule.read(Paths.get(inputFile)));
+            }
+            Files.write(Paths.get(outputFile), Linker.link(modules));
+            System.out.println("Linking successful. Output written to " + outputFile);
+        } catch (IOException e) {
+            System.err.println("Error reading or writing the file: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error linking: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void build(String outputFile, String[] inputFiles) {
+        try {
+            List<Path> sources = new ArrayList<>();
+            for (String inputFile : inputFiles) {
+                sources.add(Paths.get(inputFile));
+            }
+            IncrementalBuilder builder = new IncrementalBuilder();
+            Files.write(Paths.get(outputFile), builder.build(sources));
+            System.out.println("Build successful (" + builder.assembled() + " assembled, " + builder.reused()
+                    + " up to date). Output written to " + outputFile);
+        } catch (IOException e) {
+            System.err.println("Error reading or writing the file: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error building: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void disassemble(String inputFile, String outputFile, StandardOpenOption mode) {
+        try {
+            List<Instruction> instructions = Decoder.decode(Files.readAllBytes(Paths.get(inputFile)));
+            Files.writeString(Paths.get(outputFile), Disassembler.disassemble(instructions), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, mode);
+            System.out.println("Disassembly written to " + outputFile);
+            System.out.println();
+            new CostAnalyzer(instructions).report(System.out);
+        } catch (FileAlreadyExistsException e) {
+            System.err.println(outputFile + " already exists, please provide an output file to overwrite.");
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Error reading or writing the file: " + e.getMessage());
+            System.exit(1);
+        } catch (VerifyException e) {
+            System.err.println("Error decoding the file: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void run(String inputFile, Profiler profiler, Tracer tracer) {
         try {
             String program = Files.readString(Paths.get(inputFile));
             byte[] bytecode = new MicroAssembler(program).assemble();
 
             MicroVirtualMachine machine = new MicroVirtualMachine(bytecode.length, DEFAULT_MEMORY, DEFAULT_REGISTERS);
             machine.load(bytecode);
+            machine.profiler(profiler);
+            machine.tracer(tracer);
+            machine.jmx(true);
             machine.start();
+            machine.join();
         } catch (IOException e) {
             System.err.println("Error reading the file: " + e.getMessage());
             System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runAll(String directory, String output, String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long fuel = Long.MAX_VALUE;
+        int first = args.length > 2 && !args[2].startsWith("--") ? 3 : 2; // past the output directory
+        for (int i = first; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": {
+                    threads = parseInt(nextArgument(args, ++i), "--threads", 1);
+                    break;
+                }
+                case "--fuel": {
+                    fuel = parseLong(nextArgument(args, ++i), "--fuel", 1);
+                    break;
+                }
+                default: {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+                }
+            }
+        }
+
+        try {
+            List<BatchRunner.Result> results = new BatchRunner(threads, fuel, System.out)
+                    .run(Paths.get(directory), Paths.get(output));
+            if (results.stream().anyMatch(result -> result.status() != 0)) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading or writing a file: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void bench(String path, int iterations, int warmup) {
+        try {
+            new MacroBenchmark(iterations, warmup, System.out).run(Paths.get(path));
+        } catch (IOException e) {
+            System.err.println("Error reading the file: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void traceDump(String traceFile, long limit) {
+        try {
+            TraceDump.dump(Paths.get(traceFile), limit, System.out);
+        } catch (IOException e) {
+            System.err.println("Error reading the file: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void serve(Path socket) {
+        try {
+            MicroServer server = new MicroServer(socket);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.close();
+                } catch (IOException ignored) {
+                }
+            }));
+            System.out.println("Listening on " + socket);
+            server.join();
+        } catch (IOException | IllegalStateException e) {
+            System.err.println("Error opening the socket: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void client(String inputFile, Path socket) {
+        try {
+            int status = new MicroClient(socket).run(Paths.get(inputFile), System.in, System.out, System.err);
+            System.exit(status);
+        } catch (IOException e) {
+            System.err.println("Error running on the server at " + socket + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static Path socketPath(String[] args, int index) {
+        if (args.length > index) {
+            return Paths.get(args[index]);
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_SOCKET_NAME);
+    }
+
+    private static Profiler parseProfiler(String[] args) {
+        boolean profile = false;
+        int sampleInterval = 0;
+        String folded = null;
+
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--profile": {
+                    profile = true;
+                    break;
+                }
+                case "--sample": {
+                    sampleInterval = parseInt(nextArgument(args, ++i), "--sample", 0);
+                    break;
+                }
+                case "--folded": {
+                    folded = nextArgument(args, ++i);
+                    break;
+                }
+                case "--trace":
+                case "--trace-records": {
+                    i++; // parsed by parseTracer
+                    break;
+                }
+                default: {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+                }
+            }
+        }
+
+        if (!profile) {
+            return null;
+        }
+        return new Profiler(sampleInterval, folded == null ? null : Paths.get(folded), System.err);
+    }
+
+    private static Tracer parseTracer(String[] args) {
+        String path = null;
+        int records = DEFAULT_TRACE_RECORDS;
+
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--trace": {
+                    path = nextArgument(args, ++i);
+                    break;
+                }
+                case "--trace-records": {
+                    String value = nextArgument(args, ++i);
+                    records = (int) parseNumber(value, "--trace-records", 1, Tracer.MAX_CAPACITY);
+                    if (Integer.bitCount(records) != 1) {
+                        System.err.println("Invalid value for --trace-records: " + value + ", expected a power of two.");
+                        System.exit(1);
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (path == null) {
+            return null;
+        }
+        try {
+            return Tracer.open(Paths.get(path), records);
+        } catch (IOException e) {
+            System.err.println("Error opening the trace file: " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static String nextArgument(String[] args, int index) {
+        if (index >= args.length) {
+            System.err.println("Missing value for option " + args[index - 1]);
+            System.exit(1);
+        }
+        return args[index];
+    }
+
+    private static int parseInt(String value, String name, int min) {
+        return (int) parseNumber(value, name, min, Integer.MAX_VALUE);
+    }
+
+    private static long parseLong(String value, String name, long min) {
+        return parseNumber(value, name, min, Long.MAX_VALUE);
+    }
+
+    /**
+     * Parses a number given on the command line, or exits with a usage error if it is not a number in range.
+     */
+    private static long parseNumber(String value, String name, long min, long max) {
+        try {
+            long number = Long.parseLong(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException ignored) {
         }
+        System.err.println("Invalid value for " + name + ": " + value + ", expected a number from " + min + " to "
+                + max + ".");
+        System.exit(1);
+        return 0;
     }
 
     private static String getDefaultOutputFileA(String inputFile) {
@@ -119,7 +491,22 @@ public class Main {
         System.out.println("Usage:");
         System.out.println("  interpret <input>: Load and execute the specified input file.");
         System.out.println("  compile <input> [output]: Assemble the input file and save the bytecode to the output file.");
-        System.out.println("  run <input.masm>: Load and execute the specified .masm file.");
+        System.out.println("  assemble <input.masm> [output.mo]: Assemble the input file into an object module for the linker.");
+        System.out.println("  link <output> <input.mo...>: Link object modules into a program, the first module being the entry.");
+        System.out.println("  build <output> <input.masm...>: Assemble the changed input files and link them into a program.");
+        System.out.println("  disassemble <input> [output]: Turn a compiled file back into MicroAssembly with offsets and print static statistics.");
+        System.out.println("  run <input.masm> [--profile [--sample N] [--folded output]] [--trace file [--trace-records N]]: Load and execute the specified .masm file.");
+        System.out.println("      --profile: Print opcode, label and syscall statistics to stderr when the program halts.");
+        System.out.println("      --sample N: Read the clock every N instructions instead of at every label.");
+        System.out.println("      --folded output: Also write collapsed stacks for flame graph tools.");
+        System.out.println("      --trace file [--trace-records N]: Record the last N instructions into a memory-mapped trace file.");
+        System.out.println("  trace-dump <trace> [count]: Print the last recorded instructions of a trace file.");
+        System.out.println("  run-all <directory> [output] [--threads N] [--fuel N]: Run every .masm and .mc file under the directory in parallel and summarize the results.");
+        System.out.println("      --threads N: Run at most N programs at once, by default one per processor.");
+        System.out.println("      --fuel N: Stop a program after N instructions and count it as failed.");
+        System.out.println("  bench <input.masm|directory> [iterations] [warmup]: Run programs repeatedly on a warmed VM and report their throughput.");
+        System.out.println("  serve [socket]: Keep a warm VM running and execute programs sent over a Unix domain socket.");
+        System.out.println("  client <input> [socket]: Run a .masm or compiled file on the server, forwarding input and output.");
         System.out.println("  help: Display this help message.");
     }
 }
\ No newline at end of file
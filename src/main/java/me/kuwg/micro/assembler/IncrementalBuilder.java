@@ -0,0 +1,72 @@
+package me.kuwg.micro.assembler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code IncrementalBuilder} builds a program from several .masm sources, assembling only the sources that
+ * changed since the last build. The object module of {@code name.masm} is kept next to it as {@code name.mo}, and
+ * is reused as long as the digest of the source recorded in it matches the source.
+ */
+public final class IncrementalBuilder {
+    private int assembled;
+    private int reused;
+
+    /**
+     * Assembles the changed sources and links all of them, the first source being the entry.
+     */
+    public byte[] build(List<Path> sources) throws IOException {
+        List<ObjectModule> modules = new ArrayList<>(sources.size());
+        for (Path source : sources) {
+            modules.add(module(source));
+        }
+        return Linker.link(modules);
+    }
+
+    private ObjectModule module(Path source) throws IOException {
+        String program = Files.readString(source);
+        byte[] digest = ObjectModule.digest(program);
+        Path object = objectFile(source);
+
+        if (Files.isRegularFile(object)) {
+            try {
+                ObjectModule module = ObjectModule.read(object);
+                if (Arrays.equals(module.digest(), digest)) {
+                    reused++;
+                    return module;
+                }
+            } catch (IllegalArgumentException e) {
+                // a stale or foreign file, assemble the source again
+            }
+        }
+
+        ObjectModule module = new MicroAssembler(program).assembleObject(moduleName(source));
+        module.write(object);
+        assembled++;
+        return module;
+    }
+
+    /**
+     * Returns the object file of a source: {@code name.mo} next to {@code name.masm}.
+     */
+    public static Path objectFile(Path source) {
+        return source.resolveSibling(moduleName(source) + ".mo");
+    }
+
+    public static String moduleName(Path source) {
+        String name = source.getFileName().toString();
+        return name.endsWith(".masm") ? name.substring(0, name.length() - ".masm".length()) : name;
+    }
+
+    public int assembled() {
+        return assembled;
+    }
+
+    public int reused() {
+        return reused;
+    }
+}
@@ -0,0 +1,96 @@
+package me.kuwg.micro.assembler;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * The {@code Linker} combines {@link ObjectModule}s into one program. The code of the modules is laid out in
+ * order, so the first module is where execution starts.
+ *
+ * <p>Every label gets a program-wide id: an exported label keeps one id for all the modules that import it, and
+ * the local labels of different modules get different ids. String constants are merged into one pool, with equal
+ * strings shared. The relocations of every module are then patched with the new ids and indices, and the constant
+ * pool and label table are built as the assembler builds them for a single source.</p>
+ */
+public final class Linker {
+
+    private Linker() {
+        throw new RuntimeException("You cannot instantiate this class!");
+    }
+
+    /**
+     * Links modules into a program.
+     *
+     * @throws IllegalArgumentException if a label is exported twice, an import is not exported by any module, or
+     *                                  the program has more than 256 labels.
+     */
+    public static byte[] link(List<ObjectModule> modules) {
+        if (modules.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to link.");
+        }
+
+        Map<String, Byte> exports = new HashMap<>();
+        List<byte[]> labelIds = new ArrayList<>(); // for every module, its local label ids to program-wide ids
+        Map<Byte, Integer> offsets = new LinkedHashMap<>();
+        int base = 0;
+        int next = 0;
+
+        for (ObjectModule module : modules) {
+            byte[] ids = new byte[256];
+            for (ObjectModule.Symbol symbol : module.symbols()) {
+                if (symbol.kind() == ObjectModule.IMPORT) {
+                    continue;
+                }
+                if (next == 256) {
+                    throw new IllegalArgumentException("Too many labels, at most 256 are supported.");
+                }
+                byte id = (byte) next++;
+                if (symbol.kind() == ObjectModule.EXPORT && exports.putIfAbsent(symbol.name(), id) != null) {
+                    throw new IllegalArgumentException("Label " + symbol.name() + " is exported twice, again by "
+                            + module.name());
+                }
+                ids[symbol.id() & 0xFF] = id;
+                offsets.put(id, base + symbol.offset());
+            }
+            labelIds.add(ids);
+            base += module.code().length;
+        }
+
+        Map<String, Integer> constants = new LinkedHashMap<>();
+        ByteArrayOutputStream code = new ByteArrayOutputStream(base);
+        for (int i = 0; i < modules.size(); i++) {
+            ObjectModule module = modules.get(i);
+            byte[] ids = labelIds.get(i);
+            for (ObjectModule.Symbol symbol : module.symbols()) {
+                if (symbol.kind() == ObjectModule.IMPORT) {
+                    Byte id = exports.get(symbol.name());
+                    if (id == null) {
+                        throw new IllegalArgumentException("Undefined label " + symbol.name() + ", imported by "
+                                + module.name());
+                    }
+                    ids[symbol.id() & 0xFF] = id;
+                }
+            }
+
+            int[] indices = new int[module.strings().size()];
+            for (int s = 0; s < indices.length; s++) {
+                Integer index = constants.putIfAbsent(module.strings().get(s), constants.size());
+                indices[s] = index == null ? constants.size() - 1 : index;
+            }
+
+            ByteBuffer patched = ByteBuffer.wrap(module.code().clone());
+            for (ObjectModule.Relocation relocation : module.relocations()) {
+                int offset = relocation.offset();
+                if (relocation.kind() == ObjectModule.LABEL) {
+                    patched.put(offset, ids[patched.get(offset) & 0xFF]);
+                } else {
+                    patched.putInt(offset, indices[patched.getInt(offset)]);
+                }
+            }
+            code.writeBytes(patched.array());
+        }
+
+        return MicroAssembler.withPrologue(constants.keySet(), offsets, code.toByteArray());
+    }
+}
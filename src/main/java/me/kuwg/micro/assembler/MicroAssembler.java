@@ -3,8 +3,10 @@ package me.kuwg.micro.assembler;
 import me.kuwg.micro.syscall.SysCall;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
+import static me.kuwg.micro.constants.Constants.BooleanConstants.*;
 import static me.kuwg.micro.constants.Constants.HaltConstants.*;
 import static me.kuwg.micro.constants.Constants.InstructionConstants.*;
 import static me.kuwg.micro.constants.Constants.TypeConstants.*;
@@ -13,6 +15,8 @@ import static me.kuwg.micro.constants.Constants.ValueDeclarationConstants.*;
 public class MicroAssembler {
 
     private static final Map<String, Byte> INSTRUCTION_SET = new HashMap<>();
+    private static final Set<String> CONTROL_FLOW = Set.of("jump", "jez", "jmz", "jlz", "jnz", "jit", "jif", "halt", "spawn", "callsub", "ret");
+    private static final int INLINE_LIMIT = 4; // subroutines with at most this many instructions are inlined
 
     static {
         loadInstructionSet("load", LOAD);    // load <reg> <val>
@@ -25,30 +29,127 @@ public class MicroAssembler {
         loadInstructionSet("jmz", JMZ);      // jump more 0 <reg> <loc>
         loadInstructionSet("jlz", JLZ);      // jump less 0 <reg> <loc>
         loadInstructionSet("jnz", JNZ);      // jump not 0 <reg> <loc
+        loadInstructionSet("jit", JIT);      // jump if true <reg> <loc>
+        loadInstructionSet("jif", JIF);      // jump if false <reg> <loc>
         loadInstructionSet("store", STORE);  // store <reg> <val>
         loadInstructionSet("call", CALL);    // call <SysCall> [params]
         loadInstructionSet("jump", JUMP);    // jump <loc>
         loadInstructionSet("fetch", FETCH);  // fetch <x> <reg>
+        loadInstructionSet("memcpy", MEMCPY);  // memcpy <src> <dst> <len>
+        loadInstructionSet("memset", MEMSET);  // memset <dst> <val> <len>
+        loadInstructionSet("memcmp", MEMCMP);  // memcmp <a> <b> <len> <result>
+        loadNumericInstructionSet("vadd", VADD);  // vadd{i,l,d} <a> <b> <dst> <n>
+        loadNumericInstructionSet("vmul", VMUL);  // vmul{i,l,d} <a> <b> <dst> <n>
+        loadNumericInstructionSet("vfma", VFMA);  // vfma{i,l,d} <a> <b> <c> <dst> <n>
+        loadNumericInstructionSet("vsum", VSUM);  // vsum{i,l,d} <a> <n> <result>
+        loadNumericInstructionSet("vmin", VMIN);  // vmin{i,l,d} <a> <n> <result>
+        loadNumericInstructionSet("vmax", VMAX);  // vmax{i,l,d} <a> <n> <result>
+        loadInstructionSet("ld8", LD8);      // ld8 <addr> <reg>
+        loadInstructionSet("ld32", LD32);    // ld32 <addr> <reg>
+        loadInstructionSet("ld64", LD64);    // ld64 <addr> <reg>
+        loadInstructionSet("ldf64", LDF64);  // ldf64 <addr> <reg>
+        loadInstructionSet("st8", ST8);      // st8 <addr> <val>
+        loadInstructionSet("st32", ST32);    // st32 <addr> <val>
+        loadInstructionSet("st64", ST64);    // st64 <addr> <val>
+        loadInstructionSet("stf64", STF64);  // stf64 <addr> <val>
+        loadInstructionSet("spawn", SPAWN);  // spawn <loc> <reg>
+        loadInstructionSet("join", JOIN);    // join <handle> <reg>
+        loadInstructionSet("cas32", CAS);    // cas32 <addr> <expected> <val> <reg>
+        loadInstructionSet("cas64", CAS);    // cas64 <addr> <expected> <val> <reg>
+        loadInstructionSet("fetchadd32", FETCH_ADD);  // fetchadd32 <addr> <delta> <reg>
+        loadInstructionSet("fetchadd64", FETCH_ADD);  // fetchadd64 <addr> <delta> <reg>
+        loadInstructionSet("callsub", CALL_SUB);  // callsub <loc> [<from-reg> <to-reg>]
+        loadInstructionSet("ret", RET);      // ret
+        loadInstructionSet("sbnew", SB_NEW);         // sbnew <reg>
+        loadInstructionSet("sbappend", SB_APPEND);   // sbappend <handle> <val>
+        loadInstructionSet("sblen", SB_LENGTH);      // sblen <handle> <reg>
+        loadInstructionSet("sbsub", SB_SUBSTR);      // sbsub <handle> <start> <end> <reg>
+        loadInstructionSet("sbcmp", SB_COMPARE);     // sbcmp <handle> <handle|string> <reg>
+        loadInstructionSet("sbprint", SB_PRINT);     // sbprint <handle>
+        loadInstructionSet("sbclear", SB_CLEAR);     // sbclear <handle>
+        loadInstructionSet("sbfree", SB_FREE);       // sbfree <handle>
+        loadInstructionSet("alloc", ALLOC);  // alloc <size> <reg>
+        loadInstructionSet("free", FREE);    // free <addr>
+        loadInstructionSet("mapnewl", MAP_NEW);       // mapnewl <reg>
+        loadInstructionSet("mapnews", MAP_NEW);       // mapnews <reg>
+        loadInstructionSet("mapput", MAP_PUT);        // mapput <handle> <key> <val>
+        loadInstructionSet("mapget", MAP_GET);        // mapget <handle> <key> <default> <reg>
+        loadInstructionSet("mapremove", MAP_REMOVE);  // mapremove <handle> <key> <reg>
+        loadInstructionSet("mapsize", MAP_SIZE);      // mapsize <handle> <reg>
+        loadInstructionSet("mapfree", MAP_FREE);      // mapfree <handle>
+        loadNumericInstructionSet("arrnew", ARR_NEW);  // arrnew{i,l,d} <reg>
+        loadInstructionSet("arrpush", ARR_PUSH);      // arrpush <handle> <val>
+        loadInstructionSet("arrget", ARR_GET);        // arrget <handle> <index> <reg>
+        loadInstructionSet("arrset", ARR_SET);        // arrset <handle> <index> <val>
+        loadInstructionSet("arrlen", ARR_LENGTH);     // arrlen <handle> <reg>
+        loadInstructionSet("arrfree", ARR_FREE);      // arrfree <handle>
+        loadCompareInstructionSet("eq", CMP_EQ);  // eq{i,l,d,s} <a> <b> <result>
+        loadCompareInstructionSet("ne", CMP_NE);  // ne{i,l,d,s} <a> <b> <result>
+        loadCompareInstructionSet("lt", CMP_LT);  // lt{i,l,d,s} <a> <b> <result>
+        loadCompareInstructionSet("le", CMP_LE);  // le{i,l,d,s} <a> <b> <result>
+        loadCompareInstructionSet("gt", CMP_GT);  // gt{i,l,d,s} <a> <b> <result>
+        loadCompareInstructionSet("ge", CMP_GE);  // ge{i,l,d,s} <a> <b> <result>
+        loadNumericInstructionSet("mod", MOD);    // mod{i,l,d} <a> <b> <result>
+        loadNumericInstructionSet("min", MIN);    // min{i,l,d} <a> <b> <result>
+        loadNumericInstructionSet("max", MAX);    // max{i,l,d} <a> <b> <result>
+        loadNumericInstructionSet("abs", ABS);    // abs{i,l,d} <a> <result>
+        loadNumericInstructionSet("fma", FMA);    // fma{i,l,d} <a> <b> <c> <result>
+        loadInstructionSet("sqrt", SQRT);        // sqrt <a> <result>
+        loadIntegralInstructionSet("and", AND);  // and{i,l} <a> <b> <result>
+        loadIntegralInstructionSet("or", OR);    // or{i,l} <a> <b> <result>
+        loadIntegralInstructionSet("xor", XOR);  // xor{i,l} <a> <b> <result>
+        loadIntegralInstructionSet("shl", SHL);  // shl{i,l} <a> <count> <result>
+        loadIntegralInstructionSet("shr", SHR);  // shr{i,l} <a> <count> <result>
+        loadIntegralInstructionSet("ushr", USHR);      // ushr{i,l} <a> <count> <result>
+        loadIntegralInstructionSet("popcnt", POPCNT);  // popcnt{i,l} <a> <result>
+        loadIntegralInstructionSet("clz", CLZ);  // clz{i,l} <a> <result>
+        loadIntegralInstructionSet("ctz", CTZ);  // ctz{i,l} <a> <result>
     }
 
     private final String code;
     private final Map<String, Byte> locationMap = new HashMap<>();
+    private final Map<String, List<String>> inlineBodies = new HashMap<>();
+    private final Map<String, Integer> constants = new LinkedHashMap<>();
+    private final Set<String> exports = new LinkedHashSet<>();
+    private final Set<String> imports = new LinkedHashSet<>();
 
     public MicroAssembler(String code) {
         this.code = code;
     }
 
+    /**
+     * Returns every mnemonic with its opcode. Typed mnemonics such as {@code eqi} and {@code eqd} share one opcode, and
+     * the suffix selects the type byte that follows it.
+     */
+    public static Map<String, Byte> instructionSet() {
+        return Collections.unmodifiableMap(INSTRUCTION_SET);
+    }
+
     private static void loadInstructionSet(String name, int id) {
         INSTRUCTION_SET.put(name, (byte) id);
     }
 
+    private static void loadNumericInstructionSet(String name, int id) {
+        loadInstructionSet(name + "i", id);
+        loadInstructionSet(name + "l", id);
+        loadInstructionSet(name + "d", id);
+    }
+
+    private static void loadIntegralInstructionSet(String name, int id) {
+        loadInstructionSet(name + "i", id);
+        loadInstructionSet(name + "l", id);
+    }
+
+    private static void loadCompareInstructionSet(String name, int id) {
+        loadNumericInstructionSet(name, id);
+        loadInstructionSet(name + "s", id);
+    }
+
     public byte[] assemble() {
-        // First pass: collect labels
         String[] lines = code.split("\\n");
-        List<Byte> byteCode = new ArrayList<>();
-        byte currentIndex = 0;
+        List<String> statements = new ArrayList<>();
 
-        // First pass: Identify labels
+        // First pass: strip comments and number the labels, so that jumps can refer to labels defined later
         for (String line : lines) {
             int index = line.indexOf(";");
 
@@ -61,28 +162,181 @@ public class MicroAssembler {
             }
 
             line = line.trim();
+            if (line.startsWith(".")) {
+                parseDirective(line);
+                continue;
+            }
+            statements.add(line);
+
+            if (line.endsWith(":")) {
+                defineLabel(line.substring(0, line.length() - 1)); // Remove the colon from label
+            }
+        }
+
+        for (String export : exports) {
+            if (!locationMap.containsKey(export) || imports.contains(export)) {
+                throw new IllegalArgumentException("Exported label is not defined: " + export);
+            }
+        }
 
+        collectInlineBodies(statements);
+
+        // Second pass: parse instructions and remember where every label lands
+        List<Byte> byteCode = new ArrayList<>();
+        Map<Byte, Integer> offsets = new LinkedHashMap<>();
+
+        for (String line : statements) {
             if (line.endsWith(":")) {
-                String label = line.substring(0, line.length() - 1); // Remove the colon from label
-                locationMap.put(label, currentIndex); // Add label and its index to location map
+                byte id = locationMap.get(line.substring(0, line.length() - 1));
                 byteCode.add(LOC);
-                byteCode.add(currentIndex);
-                continue; // Skip label lines and move to the next line
+                byteCode.add(id);
+                offsets.put(id, byteCode.size());
+                continue;
+            }
+
+            List<String> body = inlineBody(line);
+            if (body != null) {
+                for (String inlined : body) {
+                    byteCode.addAll(parseInstruction(inlined)); // Copy the subroutine instead of calling it
+                }
+                continue;
             }
 
-            // Parse instruction line
             byteCode.addAll(parseInstruction(line)); // Parse the instruction line
-            currentIndex++; // Increment index for each instruction
         }
 
-        // Second pass: Resolve labels and convert to bytecode
-        byte[] byteArray = new byte[byteCode.size()];
-        for (int i = 0; i < byteCode.size(); i++) {
-            byteArray[i] = byteCode.get(i);
+        byte[] code = new byte[byteCode.size()];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = byteCode.get(i);
+        }
+        return withPrologue(constants.keySet(), offsets, code);
+    }
+
+    /**
+     * Assembles the source as a module of a larger program, to be combined with others by the {@link Linker}.
+     * Labels named by {@code .export} can be used by other modules, and labels named by {@code .import} are
+     * defined by another module.
+     *
+     * @param name the name of the module, used in error messages.
+     */
+    public ObjectModule assembleObject(String name) {
+        return ObjectModule.of(name, ObjectModule.digest(code), assemble(), locationMap, exports, imports);
+    }
+
+    /**
+     * Prepends the constant pool and the label table, which the VM reads before the first instruction runs.
+     *
+     * @param offsets the offset in {@code code} right behind the definition of every label.
+     */
+    static byte[] withPrologue(Collection<String> constants, Map<Byte, Integer> offsets, byte[] code) {
+        List<Byte> prologue = new ArrayList<>();
+        if (!constants.isEmpty()) {
+            prologue.add(STRINGS);
+            addInt(prologue, constants.size());
+            for (String constant : constants) {
+                byte[] utf8 = constant.getBytes(StandardCharsets.UTF_8);
+                addInt(prologue, utf8.length);
+                for (byte b : utf8) {
+                    prologue.add(b);
+                }
+            }
+        }
+
+        if (!offsets.isEmpty()) {
+            int size = prologue.size() + 1 + Integer.BYTES + offsets.size() * (1 + Integer.BYTES);
+            prologue.add(LABELS);
+            addInt(prologue, offsets.size());
+            for (Map.Entry<Byte, Integer> entry : offsets.entrySet()) {
+                prologue.add(entry.getKey());
+                addInt(prologue, size + entry.getValue());
+            }
         }
+
+        byte[] byteArray = new byte[prologue.size() + code.length];
+        for (int i = 0; i < prologue.size(); i++) {
+            byteArray[i] = prologue.get(i);
+        }
+        System.arraycopy(code, 0, byteArray, prologue.size(), code.length);
         return byteArray;
     }
 
+    private void defineLabel(String label) {
+        if (locationMap.containsKey(label)) {
+            throw new IllegalArgumentException(imports.contains(label)
+                    ? "Label is both imported and defined: " + label : "Duplicate label: " + label);
+        }
+        if (locationMap.size() == 256) {
+            throw new IllegalArgumentException("Too many labels, at most 256 are supported.");
+        }
+        locationMap.put(label, (byte) locationMap.size());
+    }
+
+    private void parseDirective(String line) {
+        String[] tokens = line.split("\\s+");
+        if (tokens.length != 2) {
+            throw new IllegalArgumentException("Expected one label after " + tokens[0]);
+        }
+
+        switch (tokens[0]) {
+            case ".export":
+                // Expected format: .export <label>
+                exports.add(tokens[1]);
+                break;
+            case ".import":
+                // Expected format: .import <label>
+                if (!imports.add(tokens[1])) {
+                    throw new IllegalArgumentException("Duplicate import: " + tokens[1]);
+                }
+                defineLabel(tokens[1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown directive: " + tokens[0]);
+        }
+    }
+
+    /**
+     * Finds the subroutines that are worth inlining: a label followed by at most {@link #INLINE_LIMIT} straight-line
+     * instructions and a {@code ret}. Such a call costs as much as its body, so copying the body is never slower,
+     * and the subroutine stays in place for anything that jumps to it.
+     */
+    private void collectInlineBodies(List<String> statements) {
+        for (int i = 0; i < statements.size(); i++) {
+            String line = statements.get(i);
+            if (!line.endsWith(":")) {
+                continue;
+            }
+
+            List<String> body = new ArrayList<>();
+            for (int j = i + 1; j < statements.size() && body.size() <= INLINE_LIMIT; j++) {
+                String statement = statements.get(j);
+                String instruction = statement.split("\\s+")[0];
+
+                if (instruction.equals("ret")) {
+                    inlineBodies.put(line.substring(0, line.length() - 1), body);
+                    break;
+                }
+                if (statement.endsWith(":") || CONTROL_FLOW.contains(instruction)) {
+                    break;
+                }
+                body.add(statement);
+            }
+        }
+    }
+
+    private List<String> inlineBody(String line) {
+        String[] tokens = line.split("\\s+");
+        if (tokens.length != 2 || !tokens[0].equals("callsub")) {
+            return null; // calls with a register window keep their save and restore semantics
+        }
+        return inlineBodies.get(tokens[1]);
+    }
+
+    private static void addInt(List<Byte> bytes, int value) {
+        for (byte b : ByteBuffer.allocate(Integer.BYTES).putInt(value).array()) {
+            bytes.add(b);
+        }
+    }
+
     private List<Byte> parseInstruction(String line) {
         String[] tokens = line.split("(?<=\")\\s+(?=\")|\\s+(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
 
@@ -142,6 +396,8 @@ public class MicroAssembler {
             case "jmz":
             case "jlz":
             case "jnz":
+            case "jit":
+            case "jif":
                 // Expecting format: <reg> <loc>
                 bytes.addAll(parseValueOrRegister(tokens[1]));
                 bytes.add(parseLocation(tokens[2]));
@@ -164,6 +420,292 @@ public class MicroAssembler {
                 bytes.add(parseByte(tokens[1]));
                 bytes.add(parseRegister(tokens[2]));
                 break;
+            case "memcpy":
+            case "memset":
+                // Expected format: <val> <val> <val>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                break;
+            case "memcmp":
+                // Expected format: <val> <val> <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                bytes.add(parseRegister(tokens[4]));
+                break;
+            case "vaddi":
+            case "vaddl":
+            case "vaddd":
+            case "vmuli":
+            case "vmull":
+            case "vmuld":
+                // Expected format: <val> <val> <val> <val>
+                bytes.add(parseTypeSuffix(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                bytes.addAll(parseValueOrRegister(tokens[4]));
+                break;
+            case "vfmai":
+            case "vfmal":
+            case "vfmad":
+                // Expected format: <val> <val> <val> <val> <val>
+                bytes.add(parseTypeSuffix(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                bytes.addAll(parseValueOrRegister(tokens[4]));
+                bytes.addAll(parseValueOrRegister(tokens[5]));
+                break;
+            case "vsumi":
+            case "vsuml":
+            case "vsumd":
+            case "vmini":
+            case "vminl":
+            case "vmind":
+            case "vmaxi":
+            case "vmaxl":
+            case "vmaxd":
+                // Expected format: <val> <val> <reg>
+                bytes.add(parseTypeSuffix(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.add(parseRegister(tokens[3]));
+                break;
+            case "ld8":
+            case "ld32":
+            case "ld64":
+            case "ldf64":
+                // Expected format: <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.add(parseRegister(tokens[2]));
+                break;
+            case "st8":
+            case "st32":
+            case "st64":
+            case "stf64":
+                // Expected format: <val> <val>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                break;
+            case "spawn":
+                // Expected format: <loc> <reg>
+                bytes.add(parseLocation(tokens[1]));
+                bytes.add(parseRegister(tokens[2]));
+                break;
+            case "join":
+                // Expected format: <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.add(parseRegister(tokens[2]));
+                break;
+            case "callsub":
+                // Expected format: <loc> [<reg> <reg>], the window being the bytes of the register file in between
+                bytes.add(parseLocation(tokens[1]));
+                if (tokens.length == 4) {
+                    byte from = parseRegister(tokens[2]);
+                    byte to = parseRegister(tokens[3]);
+                    if (from < 0 || to <= from) {
+                        throw new IllegalArgumentException("Invalid register window: " + tokens[2] + " " + tokens[3]);
+                    }
+                    bytes.add(from);
+                    bytes.add((byte) (to - from));
+                } else {
+                    bytes.add((byte) 0);
+                    bytes.add((byte) 0);
+                }
+                break;
+            case "ret":
+                break;
+            case "eqi":
+            case "eql":
+            case "eqd":
+            case "eqs":
+            case "nei":
+            case "nel":
+            case "ned":
+            case "nes":
+            case "lti":
+            case "ltl":
+            case "ltd":
+            case "lts":
+            case "lei":
+            case "lel":
+            case "led":
+            case "les":
+            case "gti":
+            case "gtl":
+            case "gtd":
+            case "gts":
+            case "gei":
+            case "gel":
+            case "ged":
+            case "ges":
+                // Expected format: <val> <val> <reg>
+                bytes.add(parseCompareType(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.add(parseRegister(tokens[3]));
+                break;
+            case "modi":
+            case "modl":
+            case "modd":
+            case "mini":
+            case "minl":
+            case "mind":
+            case "maxi":
+            case "maxl":
+            case "maxd":
+            case "andi":
+            case "andl":
+            case "ori":
+            case "orl":
+            case "xori":
+            case "xorl":
+            case "shli":
+            case "shll":
+            case "shri":
+            case "shrl":
+            case "ushri":
+            case "ushrl":
+                // Expected format: <val> <val> <reg>
+                bytes.add(parseTypeSuffix(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.add(parseRegister(tokens[3]));
+                break;
+            case "absi":
+            case "absl":
+            case "absd":
+            case "popcnti":
+            case "popcntl":
+            case "clzi":
+            case "clzl":
+            case "ctzi":
+            case "ctzl":
+                // Expected format: <val> <reg>
+                bytes.add(parseTypeSuffix(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.add(parseRegister(tokens[2]));
+                break;
+            case "fmai":
+            case "fmal":
+            case "fmad":
+                // Expected format: <val> <val> <val> <reg>
+                bytes.add(parseTypeSuffix(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                bytes.add(parseRegister(tokens[4]));
+                break;
+            case "sqrt":
+                // Expected format: <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.add(parseRegister(tokens[2]));
+                break;
+            case "sbnew":
+                // Expected format: <reg>
+                bytes.add(parseRegister(tokens[1]));
+                break;
+            case "sbappend":
+                // Expected format: <val> <val>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                break;
+            case "sblen":
+                // Expected format: <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.add(parseRegister(tokens[2]));
+                break;
+            case "sbsub":
+                // Expected format: <val> <val> <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                bytes.add(parseRegister(tokens[4]));
+                break;
+            case "sbcmp":
+                // Expected format: <val> <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.add(parseRegister(tokens[3]));
+                break;
+            case "alloc":
+                // Expected format: <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.add(parseRegister(tokens[2]));
+                break;
+            case "mapnewl":
+            case "mapnews":
+                // Expected format: <reg>
+                bytes.add(instruction.endsWith("s") ? STRING_TYPE : LONG_TYPE);
+                bytes.add(parseRegister(tokens[1]));
+                break;
+            case "arrnewi":
+            case "arrnewl":
+            case "arrnewd":
+                // Expected format: <reg>
+                bytes.add(parseTypeSuffix(instruction));
+                bytes.add(parseRegister(tokens[1]));
+                break;
+            case "mapput":
+            case "arrset":
+                // Expected format: <val> <val> <val>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                break;
+            case "mapget":
+                // Expected format: <val> <val> <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                bytes.add(parseRegister(tokens[4]));
+                break;
+            case "mapremove":
+            case "arrget":
+                // Expected format: <val> <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.add(parseRegister(tokens[3]));
+                break;
+            case "mapsize":
+            case "arrlen":
+                // Expected format: <val> <reg>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.add(parseRegister(tokens[2]));
+                break;
+            case "arrpush":
+                // Expected format: <val> <val>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                break;
+            case "free":
+            case "sbprint":
+            case "sbclear":
+            case "sbfree":
+            case "mapfree":
+            case "arrfree":
+                // Expected format: <val>
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                break;
+            case "cas32":
+            case "cas64":
+                // Expected format: <val> <val> <val> <reg>
+                bytes.add(parseAtomicType(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.addAll(parseValueOrRegister(tokens[3]));
+                bytes.add(parseRegister(tokens[4]));
+                break;
+            case "fetchadd32":
+            case "fetchadd64":
+                // Expected format: <val> <val> <reg>
+                bytes.add(parseAtomicType(instruction));
+                bytes.addAll(parseValueOrRegister(tokens[1]));
+                bytes.addAll(parseValueOrRegister(tokens[2]));
+                bytes.add(parseRegister(tokens[3]));
+                break;
             default:
                 throw new IllegalArgumentException("Unsupported instruction: " + instruction);
         }
@@ -201,11 +743,13 @@ public class MicroAssembler {
             String str = value.substring(1, value.length() - 1);  // Remove quotes
             byteList.add(STRING_TYPE);  // Add string identifier
 
-            byte[] stringBytes = str.getBytes();  // Convert string to bytes
-            byteList.add((byte) stringBytes.length);  // Add string length
-            for (byte b : stringBytes) {
-                byteList.add(b);  // Add string content
-            }
+            Integer index = constants.putIfAbsent(str, constants.size());  // Intern the string in the pool
+            addInt(byteList, index == null ? constants.size() - 1 : index);  // Add constant index
+        }
+        // Detect boolean type
+        else if (value.equals("true") || value.equals("false")) {
+            byteList.add(BOOLEAN_TYPE);  // Add boolean identifier
+            byteList.add(value.equals("true") ? TRUE : FALSE);  // Add boolean content
         }
         // Detect long integer type (use L suffix to distinguish from int)
         else if (value.endsWith("L") || value.endsWith("l")) {
@@ -249,6 +793,29 @@ public class MicroAssembler {
         return byteList;
     }
 
+    /**
+     * Returns the type byte selected by the suffix of a typed mnemonic: {@code i}, {@code l} or {@code d}.
+     */
+    private byte parseTypeSuffix(String instruction) {
+        return switch (instruction.charAt(instruction.length() - 1)) {
+            case 'i' -> INT_TYPE;
+            case 'l' -> LONG_TYPE;
+            case 'd' -> DOUBLE_TYPE;
+            default -> throw new IllegalArgumentException("Unknown type suffix in: " + instruction);
+        };
+    }
+
+    private byte parseCompareType(String instruction) {
+        if (instruction.endsWith("s")) {
+            return STRING_TYPE;
+        }
+        return parseTypeSuffix(instruction);
+    }
+
+    private byte parseAtomicType(String instruction) {
+        return instruction.endsWith("64") ? LONG_TYPE : INT_TYPE;
+    }
+
     private byte parseLocation(String loc) {
         // Look up the location in the loc map
         Byte index = locationMap.get(loc);
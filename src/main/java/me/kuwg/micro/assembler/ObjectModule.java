@@ -0,0 +1,232 @@
+package me.kuwg.micro.assembler;
+
+import me.kuwg.micro.bytecode.Decoder;
+import me.kuwg.micro.bytecode.Instruction;
+import me.kuwg.micro.bytecode.Operand;
+import me.kuwg.micro.bytecode.OperandKind;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static me.kuwg.micro.constants.Constants.InstructionConstants.*;
+
+/**
+ * An {@code ObjectModule} is one separately assembled part of a program, which the {@link Linker} combines with
+ * others. It holds the code of the module without the constant pool and label table, its string constants, its
+ * symbols and its relocations.
+ *
+ * <p>Every module numbers its labels and string constants from 0, so the code refers to them by module-local ids.
+ * A symbol names a label: a local one, one that other modules may refer to ({@link #EXPORT}), or one that another
+ * module defines ({@link #IMPORT}). A relocation is the offset of a label id ({@link #LABEL}) or of a 4-byte
+ * string constant index ({@link #STRING}) that the linker renumbers.</p>
+ *
+ * <p>The module also keeps the SHA-256 digest of its source, so that an incremental build can tell whether it
+ * must be assembled again.</p>
+ */
+public final class ObjectModule {
+    public static final byte LOCAL = 0;
+    public static final byte EXPORT = 1;
+    public static final byte IMPORT = 2;
+
+    public static final byte LABEL = 0;
+    public static final byte STRING = 1;
+
+    private static final int MAGIC = 0x4D564D4F; // "MVMO"
+    private static final int VERSION = 1;
+
+    private final String name;
+    private final byte[] digest;
+    private final byte[] code;
+    private final List<String> strings;
+    private final List<Symbol> symbols;
+    private final List<Relocation> relocations;
+
+    /**
+     * A label of the module. {@code offset} is where execution continues after a jump to it, relative to the code
+     * of the module, or -1 for an import.
+     */
+    public record Symbol(String name, byte kind, byte id, int offset) {
+    }
+
+    public record Relocation(byte kind, int offset) {
+    }
+
+    private ObjectModule(String name, byte[] digest, byte[] code, List<String> strings, List<Symbol> symbols,
+                         List<Relocation> relocations) {
+        this.name = name;
+        this.digest = digest;
+        this.code = code;
+        this.strings = List.copyOf(strings);
+        this.symbols = List.copyOf(symbols);
+        this.relocations = List.copyOf(relocations);
+    }
+
+    /**
+     * Builds a module from a program assembled with module-local label ids, finding the relocations by decoding
+     * its instructions.
+     */
+    static ObjectModule of(String name, byte[] digest, byte[] program, Map<String, Byte> labels,
+                           Set<String> exports, Set<String> imports) {
+        List<Instruction> instructions = Decoder.decode(program);
+        List<String> strings = new ArrayList<>();
+        int start = 0;
+
+        for (Instruction instruction : instructions) {
+            if (instruction.opcode() == STRINGS) {
+                for (Operand operand : instruction.operands()) {
+                    strings.add((String) operand.value());
+                }
+            } else if (instruction.opcode() != LABELS) {
+                break;
+            }
+            start = instruction.end();
+        }
+
+        Map<Byte, Integer> definitions = new HashMap<>();
+        List<Relocation> relocations = new ArrayList<>();
+        for (Instruction instruction : instructions) {
+            if (instruction.offset() < start) {
+                continue; // the constant pool and label table are rebuilt by the linker
+            }
+            if (instruction.opcode() == LOC) {
+                definitions.put((byte) instruction.operands().getFirst().value(), instruction.end() - start);
+            }
+
+            for (Operand operand : instruction.operands()) {
+                if (operand.register()) {
+                    continue;
+                }
+                if (operand.kind() == OperandKind.LOCATION || operand.kind() == OperandKind.LABEL) {
+                    relocations.add(new Relocation(LABEL, operand.offset() - start));
+                } else if (operand.kind().isValue() && operand.value() instanceof String) {
+                    relocations.add(new Relocation(STRING, operand.offset() + 2 - start)); // behind the value tags
+                }
+            }
+        }
+
+        List<Symbol> symbols = new ArrayList<>();
+        for (Map.Entry<String, Byte> label : labels.entrySet()) {
+            String symbol = label.getKey();
+            byte kind = imports.contains(symbol) ? IMPORT : exports.contains(symbol) ? EXPORT : LOCAL;
+            int offset = kind == IMPORT ? -1 : definitions.get(label.getValue());
+            symbols.add(new Symbol(symbol, kind, label.getValue(), offset));
+        }
+
+        return new ObjectModule(name, digest, Arrays.copyOfRange(program, start, program.length), strings, symbols,
+                relocations);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public byte[] digest() {
+        return digest.clone();
+    }
+
+    /**
+     * Returns the code of the module. The array is shared and must not be modified.
+     */
+    byte[] code() {
+        return code;
+    }
+
+    public List<String> strings() {
+        return strings;
+    }
+
+    public List<Symbol> symbols() {
+        return symbols;
+    }
+
+    public List<Relocation> relocations() {
+        return relocations;
+    }
+
+    /**
+     * Returns the SHA-256 digest of a module's source.
+     */
+    public static byte[] digest(String source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(name);
+            out.writeInt(digest.length);
+            out.write(digest);
+
+            out.writeInt(code.length);
+            out.write(code);
+
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+
+            out.writeInt(symbols.size());
+            for (Symbol symbol : symbols) {
+                out.writeUTF(symbol.name());
+                out.writeByte(symbol.kind());
+                out.writeByte(symbol.id());
+                out.writeInt(symbol.offset());
+            }
+
+            out.writeInt(relocations.size());
+            for (Relocation relocation : relocations) {
+                out.writeByte(relocation.kind());
+                out.writeInt(relocation.offset());
+            }
+        }
+    }
+
+    /**
+     * Reads a module written by {@link #write(Path)}.
+     *
+     * @throws IllegalArgumentException if the file is not an object module.
+     */
+    public static ObjectModule read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IllegalArgumentException(path + " is not an object module of version " + VERSION + ".");
+            }
+            String name = in.readUTF();
+            byte[] digest = in.readNBytes(in.readInt());
+            byte[] code = in.readNBytes(in.readInt());
+
+            int count = in.readInt();
+            List<String> strings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                strings.add(new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8));
+            }
+
+            count = in.readInt();
+            List<Symbol> symbols = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                symbols.add(new Symbol(in.readUTF(), in.readByte(), in.readByte(), in.readInt()));
+            }
+
+            count = in.readInt();
+            List<Relocation> relocations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                relocations.add(new Relocation(in.readByte(), in.readInt()));
+            }
+            return new ObjectModule(name, digest, code, strings, symbols, relocations);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException(path + " is truncated.");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package me.kuwg.micro.batch;
+
+import me.kuwg.micro.assembler.MicroAssembler;
+import me.kuwg.micro.bytecode.Program;
+import me.kuwg.micro.syscall.RecordInput;
+import me.kuwg.micro.vm.MicroVirtualMachine;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_MEMORY;
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_REGISTERS;
+
+/**
+ * The {@code BatchRunner} runs every program of a directory tree in one JVM, several at a time. Each program gets its
+ * own virtual machine, so programs share nothing but the JIT-compiled interpreter.
+ *
+ * <p>Programs are .masm sources, which are assembled first, and compiled .mc files. The standard output of
+ * {@code name.masm} is written to {@code name.masm.out} in the output directory, at the same relative path, and its
+ * standard input is read from {@code name.masm.in} next to it if that file exists. Programs are run on a fixed
+ * number of threads, so no more than that many machines and their memory are alive at once.</p>
+ *
+ * <p>The report lists the exit status, wall time and instructions of every program in path order, followed by the
+ * totals. A program that fails to assemble or throws is reported with exit status 1 and its error.</p>
+ */
+public final class BatchRunner {
+    private final int threads;
+    private final long fuel;
+    private final PrintStream report;
+
+    /**
+     * A finished program. {@code error} is {@code null} unless the program failed to load or threw.
+     */
+    public record Result(Path program, int status, long nanos, long instructions, String error) {
+    }
+
+    /**
+     * @param fuel the most instructions a program may retire before it is stopped with exit status 1.
+     */
+    public BatchRunner(int threads, long fuel, PrintStream report) {
+        if (threads <= 0 || fuel <= 0) {
+            throw new IllegalArgumentException("Threads and fuel must be positive.");
+        }
+        this.threads = threads;
+        this.fuel = fuel;
+        this.report = report;
+    }
+
+    /**
+     * Runs every program found under {@code directory} and prints the report.
+     *
+     * @return the results in path order.
+     */
+    public List<Result> run(Path directory, Path output) throws IOException, InterruptedException {
+        List<Path> programs;
+        try (Stream<Path> files = Files.walk(directory)) {
+            programs = files.filter(Files::isRegularFile)
+                    .filter(file -> file.toString().endsWith(".masm") || file.toString().endsWith(".mc"))
+                    .sorted()
+                    .toList();
+        }
+
+        report.printf("%-40s %6s %12s %16s%n", "Program", "Exit", "Wall ms", "Instructions");
+        long start = System.nanoTime();
+        List<Result> results = new ArrayList<>(programs.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(programs.size());
+            for (Path program : programs) {
+                Path out = output.resolve(directory.relativize(program) + ".out");
+                futures.add(executor.submit(() -> runProgram(program, out)));
+            }
+
+            for (Future<Result> future : futures) {
+                Result result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause().getMessage(), e.getCause());
+                }
+                results.add(result);
+                report.printf("%-40s %6d %12.2f %16d%s%n", directory.relativize(result.program()), result.status(),
+                        result.nanos() / 1e6, result.instructions(),
+                        result.error() == null ? "" : "  " + result.error());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long failed = results.stream().filter(result -> result.status() != 0).count();
+        long instructions = results.stream().mapToLong(Result::instructions).sum();
+        report.printf("%d programs, %d failed, %d instructions in %.2f ms on %d threads%n", results.size(), failed,
+                instructions, (System.nanoTime() - start) / 1e6, threads);
+        return results;
+    }
+
+    private Result runProgram(Path program, Path output) throws IOException {
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Path input = program.resolveSibling(program.getFileName() + ".in");
+
+        long start = System.nanoTime();
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(output)), false,
+                StandardCharsets.UTF_8)) {
+            MicroVirtualMachine machine = null;
+            try {
+                machine = new MicroVirtualMachine(load(program), DEFAULT_MEMORY, DEFAULT_REGISTERS);
+                machine.out(out);
+                machine.input(new RecordInput(Files.isRegularFile(input) ? FileChannel.open(input) : empty()));
+
+                if (machine.step(fuel)) {
+                    machine.terminate(1);
+                    return new Result(program, 1, System.nanoTime() - start, machine.instructionsRetired(),
+                            "instruction limit of " + fuel + " exceeded");
+                }
+                return new Result(program, machine.exitStatus(), System.nanoTime() - start,
+                        machine.instructionsRetired(), null);
+            } catch (RuntimeException e) {
+                out.println("Error: " + e.getMessage());
+                return new Result(program, 1, System.nanoTime() - start,
+                        machine == null ? 0 : machine.instructionsRetired(), String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    private static Program load(Path program) throws IOException {
+        byte[] bytecode = program.toString().endsWith(".masm")
+                ? new MicroAssembler(Files.readString(program)).assemble()
+                : Files.readAllBytes(program);
+        return Program.load(bytecode, DEFAULT_REGISTERS, DEFAULT_MEMORY);
+    }
+
+    private static ReadableByteChannel empty() {
+        return Channels.newChannel(InputStream.nullInputStream());
+    }
+}
@@ -0,0 +1,88 @@
+package me.kuwg.micro.bench;
+
+import me.kuwg.micro.assembler.MicroAssembler;
+import me.kuwg.micro.vm.MicroVirtualMachine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_MEMORY;
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_REGISTERS;
+
+/**
+ * The {@code MacroBenchmark} runs whole guest programs end to end to catch performance regressions in any part
+ * of the engine. Every program is assembled once and loaded into one virtual machine, which is warmed up and then
+ * executed repeatedly on the calling thread with its output discarded.
+ *
+ * <p>For each program, it reports the wall time, the guest instructions and the bytes allocated by the host
+ * per run, and the guest instructions per second.</p>
+ */
+public final class MacroBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int iterations;
+    private final int warmup;
+    private final PrintStream report;
+
+    public MacroBenchmark(int iterations, int warmup, PrintStream report) {
+        if (iterations <= 0 || warmup < 0) {
+            throw new IllegalArgumentException("Iterations must be positive and warmup must not be negative.");
+        }
+        this.iterations = iterations;
+        this.warmup = warmup;
+        this.report = report;
+    }
+
+    /**
+     * Benchmarks a single .masm file, or every .masm file of a directory in name order.
+     */
+    public void run(Path path) throws IOException {
+        List<Path> programs;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                programs = files.filter(file -> file.toString().endsWith(".masm")).sorted().toList();
+            }
+        } else {
+            programs = List.of(path);
+        }
+
+        report.printf("%-20s %6s %14s %18s %18s %18s%n",
+                "Program", "Runs", "Wall ms/run", "Instructions/run", "Instructions/s", "Allocated B/run");
+        for (Path program : programs) {
+            measure(program);
+        }
+    }
+
+    private void measure(Path program) throws IOException {
+        byte[] bytecode = new MicroAssembler(Files.readString(program)).assemble();
+        MicroVirtualMachine machine = new MicroVirtualMachine(bytecode.length, DEFAULT_MEMORY, DEFAULT_REGISTERS);
+        machine.load(bytecode);
+        machine.out(new PrintStream(OutputStream.nullOutputStream()));
+
+        for (int i = 0; i < warmup; i++) {
+            machine.reset();
+            machine.execute();
+        }
+
+        long instructions = 0;
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            machine.reset();
+            machine.execute();
+            instructions += machine.instructionsRetired();
+        }
+        long nanos = System.nanoTime() - start;
+        allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+
+        report.printf("%-20s %6d %14.3f %18d %18.0f %18d%n", program.getFileName(), iterations,
+                nanos / 1e6 / iterations, instructions / iterations, instructions * 1e9 / nanos, allocated / iterations);
+    }
+}
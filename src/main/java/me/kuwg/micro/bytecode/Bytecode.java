@@ -1,6 +1,10 @@
 package me.kuwg.micro.bytecode;
 
-import java.nio.ByteBuffer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static me.kuwg.micro.constants.Constants.BooleanConstants.TRUE;
 import static me.kuwg.micro.constants.Constants.TypeConstants.*;
@@ -10,13 +14,20 @@ import static me.kuwg.micro.constants.Constants.TypeConstants.*;
  * data types. This class acts as a bytecode reader that supports reading different primitive data types and
  * strings from a byte array.
  *
- * <p>The bytecode is stored in a private byte array, and the class maintains an internal index to track the
+ * <p>The bytecode is stored in a byte array, and the class maintains an internal index to track the
  * position of the next read operation. The class allows loading byte data into the bytecode and provides
  * functionality to read data types including bytes, integers, longs, doubles, strings, and booleans.</p>
  *
  * <p>This implementation ensures that the read operations handle bounds checking, throwing appropriate
  * exceptions when attempting to read beyond the limits of the bytecode array.</p>
  *
+ * <p>Strings are not stored inline. A string operand is an index into the constant pool, which is decoded once by
+ * {@link #readConstants()} when the program is loaded, so every read of the same constant returns the same
+ * {@code String} instance.</p>
+ *
+ * <p>A virtual machine does not own its program. It runs a shared, immutable {@link Program} through a reader
+ * returned by {@link Program#reader()}, so the reader index is the only per-machine part of the code.</p>
+ *
  * <p>Example usage:</p>
  * <pre>
  *     Bytecode bytecode = new Bytecode(1024);
@@ -25,8 +36,14 @@ import static me.kuwg.micro.constants.Constants.TypeConstants.*;
  * </pre>
  */
 public class Bytecode {
-    private final byte[] bytecode;
-    private int readerIndex;
+    protected static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    protected static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    protected static final VarHandle DOUBLE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.BIG_ENDIAN);
+
+    protected final byte[] bytecode;
+    protected int readerIndex;
+    protected String[] constants = new String[0];
+    protected byte[][] constantBytes = new byte[0][];
 
     /**
      * Constructs a new {@code Bytecode} instance with the specified size.
@@ -42,6 +59,26 @@ public class Bytecode {
         this.readerIndex = 0;
     }
 
+    /**
+     * Constructs a reader over an existing array, without copying it.
+     */
+    Bytecode(byte[] bytecode) {
+        this.bytecode = bytecode;
+        this.readerIndex = 0;
+    }
+
+    /**
+     * Constructs a reader over the code and constant pool of a shared {@link Program}, starting at index 0.
+     *
+     * @param program the program to read.
+     */
+    protected Bytecode(Program program) {
+        this.bytecode = program.code;
+        this.readerIndex = 0;
+        this.constants = program.constants;
+        this.constantBytes = program.constantBytes;
+    }
+
     /**
      * Loads the specified byte array into the internal bytecode array.
      *
@@ -53,6 +90,47 @@ public class Bytecode {
             throw new IllegalArgumentException("Exceeded memory (%d > %d)".formatted(bytes.length, bytecode.length));
         }
         System.arraycopy(bytes, 0, bytecode, 0, bytes.length);
+        constants = new String[0];
+        constantBytes = new byte[0][];
+    }
+
+    /**
+     * Reads the constant pool at the reader index: a 4-byte count, followed by a 4-byte length and the UTF-8 bytes
+     * of every string. The strings are decoded once and replace the current pool.
+     *
+     * @throws IndexOutOfBoundsException if the pool extends beyond the bytecode array.
+     */
+    public void readConstants() {
+        int count = readInt();
+        String[] strings = new String[count];
+        byte[][] utf8 = new byte[count][];
+
+        for (int i = 0; i < count; i++) {
+            int length = readInt();
+            if (length < 0 || length > bytecode.length - readerIndex) {
+                throw new IndexOutOfBoundsException("Not enough bytes to read constant " + i + ".");
+            }
+            utf8[i] = Arrays.copyOfRange(bytecode, readerIndex, readerIndex + length);
+            strings[i] = new String(utf8[i], StandardCharsets.UTF_8);
+            readerIndex += length;
+        }
+
+        constants = strings;
+        constantBytes = utf8;
+    }
+
+    /**
+     * Returns the UTF-8 bytes of a constant string. The array is shared and must not be modified.
+     *
+     * @param index the index of the constant in the pool.
+     * @return the encoded constant.
+     * @throws IndexOutOfBoundsException if there is no constant with that index.
+     */
+    public byte[] constantBytes(int index) {
+        if (index < 0 || index >= constantBytes.length) {
+            throw new IndexOutOfBoundsException("Unknown string constant: " + index);
+        }
+        return constantBytes[index];
     }
 
     /**
@@ -102,9 +180,9 @@ public class Bytecode {
         if (readerIndex + Integer.BYTES > bytecode.length) {
             throw new IndexOutOfBoundsException("Not enough bytes to read an int.");
         }
-        ByteBuffer buffer = ByteBuffer.wrap(bytecode, readerIndex, Integer.BYTES);
+        int value = (int) INT.get(bytecode, readerIndex);
         readerIndex += Integer.BYTES;
-        return buffer.getInt();
+        return value;
     }
 
     /**
@@ -117,9 +195,9 @@ public class Bytecode {
         if (readerIndex + Long.BYTES > bytecode.length) {
             throw new IndexOutOfBoundsException("Not enough bytes to read a long.");
         }
-        ByteBuffer buffer = ByteBuffer.wrap(bytecode, readerIndex, Long.BYTES);
+        long value = (long) LONG.get(bytecode, readerIndex);
         readerIndex += Long.BYTES;
-        return buffer.getLong();
+        return value;
     }
 
     /**
@@ -132,28 +210,23 @@ public class Bytecode {
         if (readerIndex + Double.BYTES > bytecode.length) {
             throw new IndexOutOfBoundsException("Not enough bytes to read a double.");
         }
-        ByteBuffer buffer = ByteBuffer.wrap(bytecode, readerIndex, Double.BYTES);
+        double value = (double) DOUBLE.get(bytecode, readerIndex);
         readerIndex += Double.BYTES;
-        return buffer.getDouble();
+        return value;
     }
 
     /**
-     * Reads a string from the bytecode array. The string length is determined by the next byte in the bytecode.
+     * Reads a string from the bytecode array. The string is stored as a 4-byte index into the constant pool.
      *
-     * @return the next string from the bytecode array.
-     * @throws IndexOutOfBoundsException if the end of the bytecode is reached while reading the string.
+     * @return the interned constant string.
+     * @throws IndexOutOfBoundsException if the end of the bytecode is reached, or if there is no such constant.
      */
     public String readString() {
-        if (readerIndex >= bytecode.length) {
-            throw new IndexOutOfBoundsException("End of bytecode reached while reading string.");
+        int index = readInt();
+        if (index < 0 || index >= constants.length) {
+            throw new IndexOutOfBoundsException("Unknown string constant: " + index);
         }
-        int length = readByte(); // Read string length
-        if (readerIndex + length > bytecode.length) {
-            throw new IndexOutOfBoundsException("Not enough bytes to read the string.");
-        }
-        String str = new String(bytecode, readerIndex, length); // Read string content
-        readerIndex += length;
-        return str;
+        return constants[index];
     }
 
     /**
@@ -201,6 +274,19 @@ public class Bytecode {
         return bytecode.length;
     }
 
+    /**
+     * Peeks at the byte at the reader index without advancing it.
+     *
+     * @return the byte that the next read starts with.
+     * @throws IndexOutOfBoundsException if the end of the bytecode is reached.
+     */
+    public byte peekByte() {
+        if (readerIndex >= bytecode.length) {
+            throw new IndexOutOfBoundsException("Peek index out of bounds.");
+        }
+        return bytecode[readerIndex];
+    }
+
     /**
      * Peeks at the next byte without advancing the reader index.
      *
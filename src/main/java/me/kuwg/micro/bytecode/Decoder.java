@@ -0,0 +1,269 @@
+package me.kuwg.micro.bytecode;
+
+import me.kuwg.micro.constants.Constants.ValueDeclarationConstants;
+import me.kuwg.micro.syscall.SysCall;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static me.kuwg.micro.bytecode.OperandKind.*;
+import static me.kuwg.micro.constants.Constants.BooleanConstants.TRUE;
+import static me.kuwg.micro.constants.Constants.InstructionConstants.*;
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * The {@code Decoder} splits bytecode into {@link Instruction}s using the operand layout of every opcode. It only
+ * checks the encoding: known opcodes, type identifiers and system calls, and operands that fit in the bytecode.
+ * The {@link Verifier} checks what the operands mean.
+ *
+ * <p>Every instruction added to {@code InstructionConstants} needs a layout here.</p>
+ */
+public final class Decoder {
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle DOUBLE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final OperandKind[][] LAYOUTS = new OperandKind[256][];
+
+    static {
+        layout(LOAD, REGISTER, VALUE);
+        layout(ADD, VALUE, VALUE, REGISTER);
+        layout(SUB, NUMBER, NUMBER, REGISTER);
+        layout(MUL, NUMBER, NUMBER, REGISTER);
+        layout(DIV, NUMBER, NUMBER, REGISTER);
+        layout(HALT, INTEGER);
+        layout(JEZ, NUMBER, LOCATION);
+        layout(JMZ, NUMBER, LOCATION);
+        layout(JLZ, NUMBER, LOCATION);
+        layout(JNZ, NUMBER, LOCATION);
+        layout(STORE, ADDRESS, VALUE);
+        layout(CALL, SYSCALL);  // followed by a count and that many values
+        layout(JUMP, LOCATION);
+        layout(LOC, LABEL);
+        layout(FETCH, ADDRESS, REGISTER);
+        layout(JIT, BOOLEAN, LOCATION);
+        layout(JIF, BOOLEAN, LOCATION);
+        layout(MEMCPY, INTEGER, INTEGER, INTEGER);
+        layout(MEMSET, INTEGER, INTEGER, INTEGER);
+        layout(MEMCMP, INTEGER, INTEGER, INTEGER, REGISTER);
+        layout(VADD, VECTOR_TYPE, INTEGER, INTEGER, INTEGER, INTEGER);
+        layout(VMUL, VECTOR_TYPE, INTEGER, INTEGER, INTEGER, INTEGER);
+        layout(VFMA, VECTOR_TYPE, INTEGER, INTEGER, INTEGER, INTEGER, INTEGER);
+        layout(VSUM, VECTOR_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(VMIN, VECTOR_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(VMAX, VECTOR_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(LD8, INTEGER, REGISTER);
+        layout(LD32, INTEGER, REGISTER);
+        layout(LD64, INTEGER, REGISTER);
+        layout(LDF64, INTEGER, REGISTER);
+        layout(ST8, INTEGER, NUMBER);
+        layout(ST32, INTEGER, NUMBER);
+        layout(ST64, INTEGER, NUMBER);
+        layout(STF64, INTEGER, NUMBER);
+        layout(LABELS);  // followed by a count and that many label and target pairs
+        layout(SPAWN, LOCATION, REGISTER);
+        layout(JOIN, INTEGER, REGISTER);
+        layout(CAS, ATOMIC_TYPE, INTEGER, NUMBER, NUMBER, REGISTER);
+        layout(FETCH_ADD, ATOMIC_TYPE, INTEGER, NUMBER, REGISTER);
+        layout(CALL_SUB, LOCATION, REGISTER, BYTE);
+        layout(RET);
+        layout(STRINGS);  // followed by a count and that many strings
+        layout(SB_NEW, REGISTER);
+        layout(SB_APPEND, INTEGER, VALUE);
+        layout(SB_LENGTH, INTEGER, REGISTER);
+        layout(SB_SUBSTR, INTEGER, INTEGER, INTEGER, REGISTER);
+        layout(SB_COMPARE, INTEGER, VALUE, REGISTER);
+        layout(SB_PRINT, INTEGER);
+        layout(SB_CLEAR, INTEGER);
+        layout(SB_FREE, INTEGER);
+        layout(CMP_EQ, COMPARE_TYPE, VALUE, VALUE, REGISTER);
+        layout(CMP_NE, COMPARE_TYPE, VALUE, VALUE, REGISTER);
+        layout(CMP_LT, COMPARE_TYPE, VALUE, VALUE, REGISTER);
+        layout(CMP_LE, COMPARE_TYPE, VALUE, VALUE, REGISTER);
+        layout(CMP_GT, COMPARE_TYPE, VALUE, VALUE, REGISTER);
+        layout(CMP_GE, COMPARE_TYPE, VALUE, VALUE, REGISTER);
+        layout(ALLOC, INTEGER, REGISTER);
+        layout(FREE, INTEGER);
+        layout(MAP_NEW, KEY_TYPE, REGISTER);
+        layout(MAP_PUT, INTEGER, VALUE, INTEGER);
+        layout(MAP_GET, INTEGER, VALUE, INTEGER, REGISTER);
+        layout(MAP_REMOVE, INTEGER, VALUE, REGISTER);
+        layout(MAP_SIZE, INTEGER, REGISTER);
+        layout(MAP_FREE, INTEGER);
+        layout(ARR_NEW, NUMERIC_TYPE, REGISTER);
+        layout(ARR_PUSH, INTEGER, NUMBER);
+        layout(ARR_GET, INTEGER, INTEGER, REGISTER);
+        layout(ARR_SET, INTEGER, INTEGER, NUMBER);
+        layout(ARR_LENGTH, INTEGER, REGISTER);
+        layout(ARR_FREE, INTEGER);
+        layout(MOD, NUMERIC_TYPE, NUMBER, NUMBER, REGISTER);
+        layout(MIN, NUMERIC_TYPE, NUMBER, NUMBER, REGISTER);
+        layout(MAX, NUMERIC_TYPE, NUMBER, NUMBER, REGISTER);
+        layout(ABS, NUMERIC_TYPE, NUMBER, REGISTER);
+        layout(FMA, NUMERIC_TYPE, NUMBER, NUMBER, NUMBER, REGISTER);
+        layout(SQRT, NUMBER, REGISTER);
+        layout(AND, INTEGRAL_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(OR, INTEGRAL_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(XOR, INTEGRAL_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(SHL, INTEGRAL_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(SHR, INTEGRAL_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(USHR, INTEGRAL_TYPE, INTEGER, INTEGER, REGISTER);
+        layout(POPCNT, INTEGRAL_TYPE, INTEGER, REGISTER);
+        layout(CLZ, INTEGRAL_TYPE, INTEGER, REGISTER);
+        layout(CTZ, INTEGRAL_TYPE, INTEGER, REGISTER);
+    }
+
+    private final byte[] code;
+    private int index;
+    private String[] constants = new String[0];
+
+    private Decoder(byte[] code) {
+        this.code = code;
+    }
+
+    private static void layout(byte opcode, OperandKind... operands) {
+        LAYOUTS[opcode & 0xFF] = operands;
+    }
+
+    /**
+     * Returns the fixed operands of an opcode, or {@code null} if the opcode is unknown.
+     */
+    public static OperandKind[] layoutOf(byte opcode) {
+        return LAYOUTS[opcode & 0xFF];
+    }
+
+    /**
+     * Decodes a whole program.
+     *
+     * @throws VerifyException if the bytecode cannot be decoded.
+     */
+    public static List<Instruction> decode(byte[] code) {
+        Decoder decoder = new Decoder(code);
+        List<Instruction> instructions = new ArrayList<>();
+        while (decoder.index < code.length) {
+            instructions.add(decoder.next());
+        }
+        return instructions;
+    }
+
+    private Instruction next() {
+        int offset = index;
+        byte opcode = u1();
+        OperandKind[] layout = layoutOf(opcode);
+        if (layout == null) {
+            throw new VerifyException(offset, "unknown opcode 0x" + Integer.toHexString(opcode & 0xFF));
+        }
+
+        List<Operand> operands = new ArrayList<>();
+        for (OperandKind kind : layout) {
+            operands.add(operand(kind));
+        }
+
+        switch (opcode) {
+            case CALL: {
+                int count = u1() & 0xFF;
+                for (int i = 0; i < count; i++) {
+                    operands.add(operand(VALUE));
+                }
+                break;
+            }
+            case LABELS: {
+                int count = u4();
+                checkCount(count, 1 + Integer.BYTES);
+                for (int i = 0; i < count; i++) {
+                    operands.add(new Operand(LABEL, false, u1(), index - 1));
+                    operands.add(new Operand(TARGET, false, u4(), index - Integer.BYTES));
+                }
+                break;
+            }
+            case STRINGS: {
+                int count = u4();
+                checkCount(count, Integer.BYTES);
+                constants = new String[count];
+                for (int i = 0; i < count; i++) {
+                    int start = index;
+                    int length = u4();
+                    checkCount(length, 1);
+                    constants[i] = new String(code, index, length, StandardCharsets.UTF_8);
+                    index += length;
+                    operands.add(new Operand(CONSTANT, false, constants[i], start));
+                }
+                break;
+            }
+        }
+
+        return new Instruction(offset, index - offset, opcode, List.copyOf(operands));
+    }
+
+    private Operand operand(OperandKind kind) {
+        int start = index;
+        if (!kind.isValue()) {
+            byte raw = u1();
+            if (kind == SYSCALL && (raw < 0 || raw >= SysCall.VALUES.length)) {
+                throw new VerifyException(index - 1, "unknown system call " + raw);
+            }
+            return new Operand(kind, false, raw, start);
+        }
+
+        if (u1() == ValueDeclarationConstants.REGISTER) {
+            return new Operand(kind, true, u1(), start);
+        }
+
+        int offset = index;
+        byte type = u1();
+        Object value = switch (type) {
+            case BYTE_TYPE -> u1();
+            case INT_TYPE -> u4();
+            case LONG_TYPE -> {
+                require(Long.BYTES);
+                long l = (long) LONG.get(code, index);
+                index += Long.BYTES;
+                yield l;
+            }
+            case DOUBLE_TYPE -> {
+                require(Double.BYTES);
+                double d = (double) DOUBLE.get(code, index);
+                index += Double.BYTES;
+                yield d;
+            }
+            case STRING_TYPE -> {
+                int constant = u4();
+                if (constant < 0 || constant >= constants.length) {
+                    throw new VerifyException(offset, "unknown string constant " + constant);
+                }
+                yield constants[constant];
+            }
+            case BOOLEAN_TYPE -> u1() == TRUE;
+            default -> throw new VerifyException(offset, "unknown type identifier " + type);
+        };
+        return new Operand(kind, false, value, start);
+    }
+
+    private void checkCount(int count, int minimumSize) {
+        if (count < 0 || (long) count * minimumSize > code.length - index) {
+            throw new VerifyException(index - Integer.BYTES, "count " + count + " runs past the end of the bytecode");
+        }
+    }
+
+    private void require(int bytes) {
+        if (bytes > code.length - index) {
+            throw new VerifyException(index, "operand runs past the end of the bytecode");
+        }
+    }
+
+    private byte u1() {
+        require(1);
+        return code[index++];
+    }
+
+    private int u4() {
+        require(Integer.BYTES);
+        int value = (int) INT.get(code, index);
+        index += Integer.BYTES;
+        return value;
+    }
+}
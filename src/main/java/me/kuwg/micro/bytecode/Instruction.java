@@ -0,0 +1,19 @@
+package me.kuwg.micro.bytecode;
+
+import java.util.List;
+
+import static me.kuwg.micro.constants.Constants.InstructionConstants.nameOf;
+
+/**
+ * A decoded instruction: its opcode, its operands and the range of bytecode it occupies.
+ */
+public record Instruction(int offset, int length, byte opcode, List<Operand> operands) {
+
+    public String name() {
+        return nameOf(opcode);
+    }
+
+    public int end() {
+        return offset + length;
+    }
+}
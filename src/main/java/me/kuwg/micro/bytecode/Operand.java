@@ -0,0 +1,9 @@
+package me.kuwg.micro.bytecode;
+
+/**
+ * A decoded operand. For a register operand, {@code value} is the register index; otherwise it is the constant,
+ * or the raw byte for single-byte kinds. {@code offset} is where the operand starts in the bytecode: its register
+ * or value tag for the value kinds, and its first byte for the others.
+ */
+public record Operand(OperandKind kind, boolean register, Object value, int offset) {
+}
@@ -0,0 +1,48 @@
+package me.kuwg.micro.bytecode;
+
+/**
+ * The kinds of operand an instruction can take. The first four are encoded as a register or a typed constant, and
+ * differ in the constant types they accept. The others are single raw bytes, except for {@link #TARGET}.
+ */
+public enum OperandKind {
+    /** A register or a constant of any type. */
+    VALUE,
+    /** A register or a numeric constant. */
+    NUMBER,
+    /** A register or a byte, int or long constant. */
+    INTEGER,
+    /** A register or a boolean constant. */
+    BOOLEAN,
+    /** A register index. */
+    REGISTER,
+    /** A memory address in a single byte, as used by {@code store} and {@code fetch}. */
+    ADDRESS,
+    /** A reference to a label. */
+    LOCATION,
+    /** The definition of a label. */
+    LABEL,
+    /** The element type of a vector instruction: int, long or double. */
+    VECTOR_TYPE,
+    /** The operand type of a scalar math instruction, or the element type of an array: int, long or double. */
+    NUMERIC_TYPE,
+    /** The width of an atomic instruction: int or long. */
+    ATOMIC_TYPE,
+    /** The operand type of a compare instruction: int, long, double or string. */
+    COMPARE_TYPE,
+    /** The key type of a map: long or string. */
+    KEY_TYPE,
+    /** The operand type of a bitwise instruction: int or long. */
+    INTEGRAL_TYPE,
+    /** A system call id. */
+    SYSCALL,
+    /** An unsigned count. */
+    BYTE,
+    /** A 4-byte bytecode offset in the label table. */
+    TARGET,
+    /** A string of the constant pool. */
+    CONSTANT;
+
+    public boolean isValue() {
+        return this == VALUE || this == NUMBER || this == INTEGER || this == BOOLEAN;
+    }
+}
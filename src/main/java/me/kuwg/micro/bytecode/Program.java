@@ -0,0 +1,118 @@
+package me.kuwg.micro.bytecode;
+
+import java.util.Arrays;
+
+import static me.kuwg.micro.constants.Constants.InstructionConstants.LOC;
+import static me.kuwg.micro.constants.Constants.InstructionConstants.STRINGS;
+
+/**
+ * A {@code Program} is the immutable image of a verified program: its code, its decoded constant pool and its label
+ * table. It is loaded once and can then be shared by any number of virtual machines, on any threads, each of which
+ * only holds its own {@link Bytecode} reader and state. Running hundreds of instances of the same program therefore
+ * does not copy, verify or decode it hundreds of times.
+ *
+ * <p>A program is verified for a number of registers and a memory size, and can run on any machine with at least
+ * that many.</p>
+ */
+public final class Program {
+    final byte[] code;
+    final String[] constants;
+    final byte[][] constantBytes;
+    private final int[] targets;
+    private final int registers;
+    private final int memory;
+
+    private Program(byte[] code, String[] constants, byte[][] constantBytes, int[] targets, int registers,
+                    int memory) {
+        this.code = code;
+        this.constants = constants;
+        this.constantBytes = constantBytes;
+        this.targets = targets;
+        this.registers = registers;
+        this.memory = memory;
+    }
+
+    /**
+     * Verifies a program for a machine with the given register and memory sizes, and builds its image. The bytes
+     * are copied, so the array can be reused afterwards.
+     *
+     * @throws VerifyException if the program is invalid.
+     */
+    public static Program load(byte[] bytes, int registers, int memory) {
+        byte[] code = bytes.clone();
+        int[] targets = new int[256];
+        Arrays.fill(targets, -1);
+
+        for (Instruction instruction : Verifier.verify(code, registers, memory)) {
+            if (instruction.opcode() == LOC) {
+                targets[(byte) instruction.operands().getFirst().value() & 0xFF] = instruction.end();
+            }
+        }
+
+        String[] constants = new String[0];
+        byte[][] constantBytes = new byte[0][];
+        if (code[0] == STRINGS) {
+            Bytecode reader = new Bytecode(code);
+            reader.readerIndex(1);
+            reader.readConstants();
+            constants = reader.constants;
+            constantBytes = reader.constantBytes;
+        }
+
+        return new Program(code, constants, constantBytes, targets, registers, memory);
+    }
+
+    /**
+     * Returns a new reader over this program, starting at index 0.
+     */
+    public Bytecode reader() {
+        return new VerifiedBytecode(this);
+    }
+
+    /**
+     * Returns the offset right behind the definition of a label, where a jump to it continues, or -1 if the program
+     * does not define it.
+     */
+    public int target(byte label) {
+        return targets[label & 0xFF];
+    }
+
+    /**
+     * Returns whether this program was verified for a machine that is not larger than the given one.
+     */
+    public boolean fits(int registers, int memory) {
+        return this.registers <= registers && this.memory <= memory;
+    }
+
+    public int registers() {
+        return registers;
+    }
+
+    public int memory() {
+        return memory;
+    }
+
+    public int length() {
+        return code.length;
+    }
+
+    /**
+     * Returns the string constants of the program.
+     */
+    public String[] constants() {
+        return constants.clone();
+    }
+
+    /**
+     * Returns a copy of the code.
+     */
+    public byte[] code() {
+        return code.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "Program[" + code.length + " bytes, " + constants.length + " constants, verified for "
+                + registers + " registers and " + memory + " bytes of memory]";
+    }
+}
@@ -0,0 +1,75 @@
+package me.kuwg.micro.bytecode;
+
+import static me.kuwg.micro.constants.Constants.BooleanConstants.TRUE;
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * The {@code VerifiedBytecode} reads a program that has passed the {@link Verifier}. The verifier has proven that
+ * every instruction and operand lies within the program, that every string index is in the constant pool and that
+ * every jump target is an instruction boundary, so the reads skip those checks, and multi-byte values are read
+ * through {@code VarHandle}s without allocating.
+ *
+ * <p>The array accesses themselves are still bounds-checked by the JVM, so a program that was not verified cannot
+ * read outside of the bytecode, only misinterpret it.</p>
+ */
+public final class VerifiedBytecode extends Bytecode {
+
+    VerifiedBytecode(Program program) {
+        super(program);
+    }
+
+    @Override
+    public Object read() {
+        byte typeIdentifier = bytecode[readerIndex++];
+        return switch (typeIdentifier) {
+            case BYTE_TYPE -> bytecode[readerIndex++];
+            case INT_TYPE -> readInt();
+            case LONG_TYPE -> readLong();
+            case DOUBLE_TYPE -> readDouble();
+            case STRING_TYPE -> readString();
+            case BOOLEAN_TYPE -> bytecode[readerIndex++] == TRUE;
+            default -> throw new IllegalArgumentException("Unknown type identifier: " + typeIdentifier);
+        };
+    }
+
+    @Override
+    public byte readByte() {
+        return bytecode[readerIndex++];
+    }
+
+    @Override
+    public int readInt() {
+        int value = (int) INT.get(bytecode, readerIndex);
+        readerIndex += Integer.BYTES;
+        return value;
+    }
+
+    @Override
+    public long readLong() {
+        long value = (long) LONG.get(bytecode, readerIndex);
+        readerIndex += Long.BYTES;
+        return value;
+    }
+
+    @Override
+    public double readDouble() {
+        double value = (double) DOUBLE.get(bytecode, readerIndex);
+        readerIndex += Double.BYTES;
+        return value;
+    }
+
+    @Override
+    public String readString() {
+        return constants[readInt()];
+    }
+
+    @Override
+    public void readerIndex(int readerIndex) {
+        this.readerIndex = readerIndex;
+    }
+
+    @Override
+    public byte peekByte() {
+        return bytecode[readerIndex];
+    }
+}
@@ -0,0 +1,188 @@
+package me.kuwg.micro.bytecode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static me.kuwg.micro.constants.Constants.InstructionConstants.*;
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * The {@code Verifier} checks a program once, when it is loaded, so that it fails before it starts rather than
+ * halfway through, and so that the interpreter can read it without bounds checks.
+ *
+ * <p>A verified program decodes completely, uses registers and constant memory addresses within the machine,
+ * gives constants of the right type to every operand, defines every label it refers to exactly once, has a label
+ * table that points right behind each label, and cannot run past its last instruction.</p>
+ *
+ * <p>Values in registers and addresses computed at run time are still checked as the program runs.</p>
+ */
+public final class Verifier {
+
+    private Verifier() {
+        throw new RuntimeException("You cannot instantiate this class!");
+    }
+
+    /**
+     * Verifies a program for a machine with the given register and memory sizes.
+     *
+     * @return the decoded instructions.
+     * @throws VerifyException if the program is invalid.
+     */
+    public static List<Instruction> verify(byte[] code, int registers, int memory) {
+        List<Instruction> instructions = Decoder.decode(code);
+        if (instructions.isEmpty()) {
+            throw new VerifyException(0, "the program is empty");
+        }
+
+        Map<Byte, Integer> labels = new HashMap<>(); // label id to the offset behind its LOC instruction
+        for (Instruction instruction : instructions) {
+            if (instruction.opcode() == LOC) {
+                byte id = (byte) instruction.operands().getFirst().value();
+                if (labels.put(id, instruction.end()) != null) {
+                    throw new VerifyException(instruction.offset(), "label " + (id & 0xFF) + " is defined twice");
+                }
+            }
+        }
+
+        for (Instruction instruction : instructions) {
+            List<Operand> operands = instruction.operands();
+            for (Operand operand : operands) {
+                checkOperand(instruction, operand, registers, memory, labels);
+            }
+
+            switch (instruction.opcode()) {
+                case LABELS: {
+                    for (int i = 0; i < operands.size(); i += 2) {
+                        byte id = (byte) operands.get(i).value();
+                        int target = (int) operands.get(i + 1).value();
+                        if (!Integer.valueOf(target).equals(labels.get(id))) {
+                            throw new VerifyException(instruction.offset(), "label table entry for label " + (id & 0xFF)
+                                    + " points to " + target + " instead of behind its definition");
+                        }
+                    }
+                    break;
+                }
+                case LD8:
+                case ST8: {
+                    checkConstantRegion(instruction, operands.getFirst(), Byte.BYTES, memory);
+                    break;
+                }
+                case LD32:
+                case ST32: {
+                    checkConstantRegion(instruction, operands.getFirst(), Integer.BYTES, memory);
+                    break;
+                }
+                case LD64:
+                case LDF64:
+                case ST64:
+                case STF64: {
+                    checkConstantRegion(instruction, operands.getFirst(), Long.BYTES, memory);
+                    break;
+                }
+            }
+        }
+
+        byte last = instructions.getLast().opcode();
+        if (last != HALT && last != JUMP && last != RET) {
+            throw new VerifyException(instructions.getLast().offset(),
+                    "execution can run past the end of the program, it must end with halt, jump or ret");
+        }
+        return instructions;
+    }
+
+    private static void checkOperand(Instruction instruction, Operand operand, int registers, int memory,
+                                     Map<Byte, Integer> labels) {
+        int offset = instruction.offset();
+        if (operand.register() || operand.kind() == OperandKind.REGISTER) {
+            int register = (byte) operand.value();
+            if (register < 0 || register >= registers) {
+                throw new VerifyException(offset, instruction.name() + " uses register R" + register
+                        + ", but the machine has " + registers);
+            }
+            return;
+        }
+
+        Object value = operand.value();
+        switch (operand.kind()) {
+            case NUMBER -> {
+                if (!(value instanceof Number)) {
+                    throw new VerifyException(offset, instruction.name() + " expects a number, instead got " + value);
+                }
+            }
+            case INTEGER -> {
+                if (!(value instanceof Byte || value instanceof Integer || value instanceof Long)) {
+                    throw new VerifyException(offset, instruction.name() + " expects an integer, instead got " + value);
+                }
+            }
+            case BOOLEAN -> {
+                if (!(value instanceof Boolean)) {
+                    throw new VerifyException(offset, instruction.name() + " expects a boolean, instead got " + value);
+                }
+            }
+            case ADDRESS -> {
+                int address = (byte) value;
+                if (address < 0 || address >= memory) {
+                    throw new VerifyException(offset, instruction.name() + " uses address " + address
+                            + " outside of memory");
+                }
+            }
+            case LOCATION -> {
+                if (!labels.containsKey((byte) value)) {
+                    throw new VerifyException(offset, instruction.name() + " refers to undefined label "
+                            + ((byte) value & 0xFF));
+                }
+            }
+            case VECTOR_TYPE -> {
+                byte type = (byte) value;
+                if (type != INT_TYPE && type != LONG_TYPE && type != DOUBLE_TYPE) {
+                    throw new VerifyException(offset, "unknown vector type " + type);
+                }
+            }
+            case NUMERIC_TYPE -> {
+                byte type = (byte) value;
+                if (type != INT_TYPE && type != LONG_TYPE && type != DOUBLE_TYPE) {
+                    throw new VerifyException(offset, "unknown numeric type " + type);
+                }
+            }
+            case ATOMIC_TYPE -> {
+                byte type = (byte) value;
+                if (type != INT_TYPE && type != LONG_TYPE) {
+                    throw new VerifyException(offset, "unknown atomic width " + type);
+                }
+            }
+            case COMPARE_TYPE -> {
+                byte type = (byte) value;
+                if (type != INT_TYPE && type != LONG_TYPE && type != DOUBLE_TYPE && type != STRING_TYPE) {
+                    throw new VerifyException(offset, "unknown compare type " + type);
+                }
+            }
+            case KEY_TYPE -> {
+                byte type = (byte) value;
+                if (type != LONG_TYPE && type != STRING_TYPE) {
+                    throw new VerifyException(offset, "unknown map key type " + type);
+                }
+            }
+            case INTEGRAL_TYPE -> {
+                byte type = (byte) value;
+                if (type != INT_TYPE && type != LONG_TYPE) {
+                    throw new VerifyException(offset, "unknown integral type " + type);
+                }
+            }
+            default -> {
+                // VALUE accepts any constant, and the other kinds are checked by the decoder or per instruction
+            }
+        }
+    }
+
+    private static void checkConstantRegion(Instruction instruction, Operand address, int width, int memory) {
+        if (address.register()) {
+            return;
+        }
+        long start = ((Number) address.value()).longValue();
+        if (start < 0 || start > memory - width) {
+            throw new VerifyException(instruction.offset(), instruction.name() + " accesses " + width
+                    + " bytes at address " + start + " outside of memory");
+        }
+    }
+}
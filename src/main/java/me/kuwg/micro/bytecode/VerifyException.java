@@ -0,0 +1,22 @@
+package me.kuwg.micro.bytecode;
+
+import java.io.Serial;
+
+/**
+ * Thrown when bytecode is malformed or breaks a rule checked by the {@link Verifier}, before the program runs.
+ */
+public class VerifyException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int offset;
+
+    public VerifyException(int offset, String message) {
+        super("Invalid bytecode at offset " + offset + ": " + message);
+        this.offset = offset;
+    }
+
+    public int offset() {
+        return offset;
+    }
+}
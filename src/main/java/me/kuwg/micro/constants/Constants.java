@@ -1,5 +1,7 @@
 package me.kuwg.micro.constants;
 
+import java.lang.reflect.Field;
+
 import static me.kuwg.micro.constants.Constants.MemoryConstants.KILOBYTE;
 import static me.kuwg.micro.constants.Constants.MemoryConstants.MEGABYTE;
 
@@ -22,7 +24,95 @@ public final class Constants extends ConstantClass {
         public static final byte LOC = 0x0d;
         public static final byte FETCH = 0x0e;
         public static final byte JIT = 0x0f;
+        public static final byte MEMCPY = 0x10;
+        public static final byte MEMSET = 0x11;
         public static final byte JIF = 0x12;
+        public static final byte MEMCMP = 0x13;
+        public static final byte VADD = 0x14;
+        public static final byte VMUL = 0x15;
+        public static final byte VFMA = 0x16;
+        public static final byte VSUM = 0x17;
+        public static final byte VMIN = 0x18;
+        public static final byte VMAX = 0x19;
+        public static final byte LD8 = 0x1a;
+        public static final byte LD32 = 0x1b;
+        public static final byte LD64 = 0x1c;
+        public static final byte LDF64 = 0x1d;
+        public static final byte ST8 = 0x1e;
+        public static final byte ST32 = 0x1f;
+        public static final byte ST64 = 0x20;
+        public static final byte STF64 = 0x21;
+        public static final byte LABELS = 0x22;
+        public static final byte SPAWN = 0x23;
+        public static final byte JOIN = 0x24;
+        public static final byte CAS = 0x25;
+        public static final byte FETCH_ADD = 0x26;
+        public static final byte CALL_SUB = 0x27;
+        public static final byte RET = 0x28;
+        public static final byte STRINGS = 0x29;
+        public static final byte SB_NEW = 0x2a;
+        public static final byte SB_APPEND = 0x2b;
+        public static final byte SB_LENGTH = 0x2c;
+        public static final byte SB_SUBSTR = 0x2d;
+        public static final byte SB_COMPARE = 0x2e;
+        public static final byte SB_PRINT = 0x2f;
+        public static final byte SB_CLEAR = 0x30;
+        public static final byte CMP_EQ = 0x31;
+        public static final byte CMP_NE = 0x32;
+        public static final byte CMP_LT = 0x33;
+        public static final byte CMP_LE = 0x34;
+        public static final byte CMP_GT = 0x35;
+        public static final byte CMP_GE = 0x36;
+        public static final byte ALLOC = 0x37;
+        public static final byte FREE = 0x38;
+        public static final byte MAP_NEW = 0x39;
+        public static final byte MAP_PUT = 0x3a;
+        public static final byte MAP_GET = 0x3b;
+        public static final byte MAP_REMOVE = 0x3c;
+        public static final byte MAP_SIZE = 0x3d;
+        public static final byte ARR_NEW = 0x3e;
+        public static final byte ARR_PUSH = 0x3f;
+        public static final byte ARR_GET = 0x40;
+        public static final byte ARR_SET = 0x41;
+        public static final byte ARR_LENGTH = 0x42;
+        public static final byte MOD = 0x43;
+        public static final byte MIN = 0x44;
+        public static final byte MAX = 0x45;
+        public static final byte ABS = 0x46;
+        public static final byte FMA = 0x47;
+        public static final byte SQRT = 0x48;
+        public static final byte AND = 0x49;
+        public static final byte OR = 0x4a;
+        public static final byte XOR = 0x4b;
+        public static final byte SHL = 0x4c;
+        public static final byte SHR = 0x4d;
+        public static final byte USHR = 0x4e;
+        public static final byte POPCNT = 0x4f;
+        public static final byte CLZ = 0x50;
+        public static final byte CTZ = 0x51;
+        public static final byte SB_FREE = 0x52;
+        public static final byte MAP_FREE = 0x53;
+        public static final byte ARR_FREE = 0x54;
+
+        private static String[] names;
+
+        public static String nameOf(byte instruction) {
+            if (names == null) {
+                String[] table = new String[256];
+                for (Field field : InstructionConstants.class.getFields()) {
+                    if (field.getType() == byte.class) {
+                        try {
+                            table[field.getByte(null) & 0xFF] = field.getName();
+                        } catch (IllegalAccessException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }
+                names = table;
+            }
+            String name = names[instruction & 0xFF];
+            return name != null ? name : "0x" + Integer.toHexString(instruction & 0xFF);
+        }
     }
 
     public static final class TypeConstants extends ConstantClass {
@@ -47,6 +137,15 @@ public final class Constants extends ConstantClass {
         public static final int DEFAULT_MEMORY = (int) (2 * MEGABYTE); // default vm memory
         public static final int DEFAULT_REGISTERS = (int) (3 * KILOBYTE); // default vm registers
         public static final String DEFAULT_VM_THREAD_NAME = "MicroVM-main";
+        public static final String DEFAULT_WORKER_THREAD_NAME = "MicroVM-worker-";
+        public static final int DEFAULT_INPUT_BUFFER = (int) (64 * KILOBYTE); // input syscall buffer
+        public static final int HOT_LOOP_THRESHOLD = 10_000; // jumps to a label before it is reported as hot
+        public static final int DEFAULT_QUANTUM = 10_000; // instructions a scheduled vm runs before yielding
+        public static final int DEFAULT_CALL_DEPTH = 256; // nested subroutine calls before the stack overflows
+        public static final int DEFAULT_CHANNEL_CAPACITY = 1024; // values a channel holds, must be a power of two
+        public static final String DEFAULT_SOCKET_NAME = "microvm.sock"; // server socket in the temporary directory
+        public static final int DEFAULT_PROGRAM_CACHE = 256; // programs a server keeps verified
+        public static final int DEFAULT_TRACE_RECORDS = 1 << 20; // instructions a trace keeps, must be a power of two
     }
 
     public static final class MemoryConstants extends ConstantClass {
@@ -0,0 +1,253 @@
+package me.kuwg.micro.disassembler;
+
+import me.kuwg.micro.bytecode.Instruction;
+import me.kuwg.micro.bytecode.Operand;
+import me.kuwg.micro.bytecode.OperandKind;
+
+import java.io.PrintStream;
+import java.util.*;
+
+import static me.kuwg.micro.constants.Constants.InstructionConstants.*;
+
+/**
+ * The {@code CostAnalyzer} computes static statistics of a program without running it: the instruction mix, the
+ * size of the constant pool and of the code, the loops with their nesting, and the subroutines.
+ *
+ * <p>A loop is found from its back edges, the jumps to a label defined at or before the jump. Its cost is the most
+ * instructions dispatched on a path from the label back to it, which bounds the time of one iteration. Every
+ * {@code callsub} on the path adds the cost of the subroutine, which is the most instructions dispatched from its
+ * label to a {@code ret}. Inner loops are counted as running once, and a recursive subroutine as its call alone,
+ * so such a cost is a lower bound and is reported as "at least".</p>
+ */
+public final class CostAnalyzer {
+    private static final int NONE = -1;
+    private static final Set<Byte> JUMPS = Set.of(JUMP, JEZ, JMZ, JLZ, JNZ, JIT, JIF);
+
+    private final List<Instruction> code;
+    private final int prologue;
+    private final Instruction strings;
+    private final Instruction labels;
+    private final int[] entries = new int[256]; // label to the index of the instruction a jump to it continues at
+    private final Map<Byte, Cost> subroutines = new LinkedHashMap<>();
+    private final List<Loop> loops = new ArrayList<>();
+
+    /**
+     * The cost of a path in dispatched instructions. {@code atLeast} is set if the path contains loops or recursion.
+     */
+    public record Cost(int dispatches, boolean atLeast) {
+    }
+
+    /**
+     * A loop, from the label it jumps back to until its last back edge. {@code depth} is 1 for an outermost loop.
+     */
+    public record Loop(byte label, int start, int end, int depth, int instructions, Cost cost) {
+    }
+
+    public CostAnalyzer(List<Instruction> instructions) {
+        int first = 0;
+        Instruction strings = null;
+        Instruction labels = null;
+        for (Instruction instruction : instructions) {
+            if (instruction.opcode() == STRINGS) {
+                strings = instruction;
+            } else if (instruction.opcode() == LABELS) {
+                labels = instruction;
+            } else {
+                break;
+            }
+            first++;
+        }
+        this.code = instructions.subList(first, instructions.size());
+        this.prologue = code.isEmpty() ? 0 : code.getFirst().offset();
+        this.strings = strings;
+        this.labels = labels;
+
+        Arrays.fill(entries, NONE);
+        for (int i = 0; i < code.size(); i++) {
+            if (code.get(i).opcode() == LOC) {
+                entries[(byte) code.get(i).operands().getFirst().value() & 0xFF] = i + 1;
+            }
+        }
+
+        for (Instruction instruction : code) {
+            if (instruction.opcode() == CALL_SUB) {
+                subroutine(target(instruction), new HashSet<>());
+            }
+        }
+        findLoops();
+    }
+
+    public List<Loop> loops() {
+        return loops;
+    }
+
+    /**
+     * Returns the cost of every subroutine that is called, from its label to a {@code ret}, or {@code null} if it
+     * cannot return.
+     */
+    public Map<Byte, Cost> subroutines() {
+        return subroutines;
+    }
+
+    public void report(PrintStream out) {
+        int length = code.isEmpty() ? prologue : code.getLast().end();
+        int codeBytes = length - prologue;
+        out.printf("Bytecode: %d bytes, %d of them in %d instructions (%.2f bytes per instruction)%n", length,
+                codeBytes, code.size(), code.isEmpty() ? 0.0 : (double) codeBytes / code.size());
+        out.printf("Constant pool: %d strings in %d bytes%n", strings == null ? 0 : strings.operands().size(),
+                strings == null ? 0 : strings.length());
+        out.printf("Label table: %d labels in %d bytes%n", labels == null ? 0 : labels.operands().size() / 2,
+                labels == null ? 0 : labels.length());
+
+        Map<String, int[]> mix = new HashMap<>(); // name to count and bytes
+        for (Instruction instruction : code) {
+            int[] entry = mix.computeIfAbsent(instruction.name(), name -> new int[2]);
+            entry[0]++;
+            entry[1] += instruction.length();
+        }
+        out.println();
+        out.printf("%-14s %8s %8s %12s%n", "Instruction", "Count", "Share", "Bytes/instr");
+        mix.entrySet().stream()
+                .sorted(Map.Entry.<String, int[]>comparingByValue(Comparator.comparingInt(entry -> -entry[0]))
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> out.printf("%-14s %8d %7.1f%% %12.2f%n", entry.getKey(), entry.getValue()[0],
+                        100.0 * entry.getValue()[0] / code.size(), (double) entry.getValue()[1] / entry.getValue()[0]));
+
+        out.println();
+        if (loops.isEmpty()) {
+            out.println("No loops.");
+        } else {
+            out.printf("%-8s %-17s %5s %12s  %s%n", "Loop", "Offsets", "Depth", "Instructions", "Dispatches/iteration");
+            for (Loop loop : loops) {
+                out.printf("%-8s %08x-%08x %5d %12d  %s%n", "  ".repeat(loop.depth() - 1)
+                                + Disassembler.labelName(loop.label()), loop.start(), loop.end(), loop.depth(),
+                        loop.instructions(), format(loop.cost()));
+            }
+        }
+
+        if (!subroutines.isEmpty()) {
+            out.println();
+            out.printf("%-8s %s%n", "Routine", "Dispatches/call");
+            subroutines.forEach((label, cost) -> out.printf("%-8s %s%n", Disassembler.labelName(label),
+                    cost == null ? "does not return" : format(cost)));
+        }
+    }
+
+    private static String format(Cost cost) {
+        if (cost == null) {
+            return "-";
+        }
+        return cost.atLeast() ? "at least " + cost.dispatches() : String.valueOf(cost.dispatches());
+    }
+
+    private void findLoops() {
+        Map<Integer, Integer> ends = new TreeMap<>(); // loop entry to its last back edge
+        for (int i = 0; i < code.size(); i++) {
+            if (JUMPS.contains(code.get(i).opcode())) {
+                int target = entries[target(code.get(i)) & 0xFF];
+                if (target != NONE && target <= i) {
+                    ends.merge(target, i, Math::max);
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> loop : ends.entrySet()) {
+            int entry = loop.getKey();
+            int end = loop.getValue();
+            int depth = 1;
+            for (Map.Entry<Integer, Integer> other : ends.entrySet()) {
+                if (other.getKey() <= entry && other.getValue() >= end && !other.getKey().equals(entry)) {
+                    depth++;
+                }
+            }
+            byte label = (byte) code.get(entry - 1).operands().getFirst().value();
+            loops.add(new Loop(label, code.get(entry - 1).offset(), code.get(end).offset(), depth, end - entry + 2,
+                    longestPath(entry, end, true, new HashSet<>())));
+        }
+    }
+
+    /**
+     * Returns the cost of a subroutine, or {@code null} if it cannot return. {@code active} holds the subroutines
+     * whose cost is being computed, so that recursion ends.
+     */
+    private Cost subroutine(byte label, Set<Byte> active) {
+        if (subroutines.containsKey(label)) {
+            return subroutines.get(label);
+        }
+        if (!active.add(label)) {
+            return new Cost(0, true); // recursive, only the call itself is counted
+        }
+        Cost cost = longestPath(entries[label & 0xFF], code.size() - 1, false, active);
+        active.remove(label);
+        subroutines.put(label, cost);
+        return cost;
+    }
+
+    /**
+     * Returns the most instructions dispatched from instruction {@code entry} on a path that ends with a jump back
+     * to it ({@code loop}) or with a {@code ret}, without leaving the instructions up to {@code end}. Other back
+     * edges are not followed, so every path is finite.
+     */
+    private Cost longestPath(int entry, int end, boolean loop, Set<Byte> active) {
+        if (entry == NONE || entry >= code.size()) {
+            return null;
+        }
+        int[] cost = new int[end + 1];
+        boolean[] atLeast = new boolean[end + 1];
+        Arrays.fill(cost, NONE);
+
+        for (int i = end; i >= entry; i--) {
+            Instruction instruction = code.get(i);
+            byte opcode = instruction.opcode();
+            int own = 1;
+            boolean inexact = false;
+            int best = NONE;
+
+            if (opcode == RET) {
+                best = loop ? NONE : 0;
+            } else if (opcode == CALL_SUB) {
+                Cost callee = subroutine(target(instruction), active);
+                if (callee == null) {
+                    cost[i] = NONE; // the call never returns
+                    continue;
+                }
+                own += callee.dispatches();
+                inexact = callee.atLeast();
+            }
+
+            if (JUMPS.contains(opcode)) {
+                int target = entries[target(instruction) & 0xFF];
+                if (target != NONE && target <= i) {
+                    if (loop && target == entry) {
+                        best = 0;
+                    } else {
+                        inexact = true; // an inner loop, counted as running once
+                    }
+                } else if (target != NONE && target <= end && cost[target] != NONE) {
+                    best = Math.max(best, cost[target]);
+                    inexact |= atLeast[target];
+                }
+            }
+            boolean fallsThrough = opcode != JUMP && opcode != RET && opcode != HALT;
+            if (fallsThrough && i < end && cost[i + 1] != NONE) {
+                best = Math.max(best, cost[i + 1]);
+                inexact |= atLeast[i + 1];
+            }
+
+            if (best != NONE) {
+                cost[i] = own + best;
+                atLeast[i] = inexact;
+            }
+        }
+        return cost[entry] == NONE ? null : new Cost(cost[entry], atLeast[entry]);
+    }
+
+    private static byte target(Instruction instruction) {
+        for (Operand operand : instruction.operands()) {
+            if (operand.kind() == OperandKind.LOCATION) {
+                return (byte) operand.value();
+            }
+        }
+        throw new IllegalArgumentException(instruction.name() + " has no label operand");
+    }
+}
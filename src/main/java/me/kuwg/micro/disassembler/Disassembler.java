@@ -0,0 +1,158 @@
+package me.kuwg.micro.disassembler;
+
+import me.kuwg.micro.assembler.MicroAssembler;
+import me.kuwg.micro.bytecode.Decoder;
+import me.kuwg.micro.bytecode.Instruction;
+import me.kuwg.micro.bytecode.Operand;
+import me.kuwg.micro.bytecode.OperandKind;
+import me.kuwg.micro.syscall.SysCall;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static me.kuwg.micro.constants.Constants.InstructionConstants.*;
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * The {@code Disassembler} turns bytecode back into MicroAssembly that the {@link MicroAssembler} accepts. Every
+ * line ends with a comment holding the bytecode offset of the instruction, as shown by {@code trace-dump}.
+ *
+ * <p>Label names are not kept in the bytecode, so label {@code n} is named {@code Ln}. The constant pool and the
+ * label table are rebuilt by the assembler and only summarized in the header. Assembling the listing again gives
+ * the same bytecode, as long as the labels are numbered in the order they are defined, which the assembler always
+ * does.</p>
+ */
+public final class Disassembler {
+    private static final int COLUMN = 48;
+    private static final Map<Integer, String> MNEMONICS = new HashMap<>();
+
+    static {
+        for (Map.Entry<String, Byte> entry : new TreeMap<>(MicroAssembler.instructionSet()).entrySet()) {
+            String name = entry.getKey();
+            byte opcode = entry.getValue();
+            OperandKind[] layout = Decoder.layoutOf(opcode);
+            OperandKind first = layout.length > 0 ? layout[0] : null;
+            MNEMONICS.putIfAbsent(key(opcode, isType(first) ? typeOf(name, first) : 0), name);
+        }
+    }
+
+    private Disassembler() {
+        throw new RuntimeException("You cannot instantiate this class!");
+    }
+
+    /**
+     * Returns the name of a label in listings, the same name the profiler reports it under.
+     */
+    public static String labelName(byte label) {
+        return "loc_" + (label & 0xFF);
+    }
+
+    /**
+     * Disassembles decoded bytecode into a listing.
+     */
+    public static String disassemble(List<Instruction> instructions) {
+        StringBuilder listing = new StringBuilder();
+        int length = instructions.isEmpty() ? 0 : instructions.getLast().end();
+        listing.append("; ").append(length).append(" bytes of bytecode\n");
+
+        for (Instruction instruction : instructions) {
+            StringBuilder line = new StringBuilder();
+            switch (instruction.opcode()) {
+                case STRINGS -> {
+                    listing.append("; constant pool: ").append(instruction.operands().size()).append(" strings in ")
+                            .append(instruction.length()).append(" bytes\n");
+                    continue;
+                }
+                case LABELS -> {
+                    listing.append("; label table: ").append(instruction.operands().size() / 2).append(" labels in ")
+                            .append(instruction.length()).append(" bytes\n");
+                    continue;
+                }
+                case LOC -> line.append(labelName((byte) instruction.operands().getFirst().value())).append(':');
+                default -> line.append("    ").append(render(instruction));
+            }
+
+            while (line.length() < COLUMN) {
+                line.append(' ');
+            }
+            listing.append(line).append(" ; ").append(String.format("%08x", instruction.offset())).append('\n');
+        }
+        return listing.toString();
+    }
+
+    private static String render(Instruction instruction) {
+        List<Operand> operands = instruction.operands();
+        int first = 0;
+        byte type = 0;
+        if (!operands.isEmpty() && isType(operands.getFirst().kind())) {
+            type = (byte) operands.getFirst().value();
+            first = 1;
+        }
+
+        String mnemonic = MNEMONICS.get(key(instruction.opcode(), type));
+        if (mnemonic == null) {
+            throw new IllegalArgumentException("No mnemonic for " + instruction.name() + " at offset "
+                    + instruction.offset());
+        }
+        StringBuilder text = new StringBuilder(mnemonic);
+
+        if (instruction.opcode() == CALL_SUB) {
+            // Expected format: callsub <loc> [<from-reg> <to-reg>]
+            text.append(' ').append(labelName((byte) operands.get(0).value()));
+            int from = (byte) operands.get(1).value();
+            int count = (byte) operands.get(2).value() & 0xFF;
+            if (count > 0) {
+                text.append(" R").append(from).append(" R").append(from + count);
+            }
+            return text.toString();
+        }
+
+        for (int i = first; i < operands.size(); i++) {
+            text.append(' ').append(render(operands.get(i)));
+        }
+        return text.toString();
+    }
+
+    private static String render(Operand operand) {
+        Object value = operand.value();
+        if (operand.register() || operand.kind() == OperandKind.REGISTER) {
+            return "R" + (byte) value;
+        }
+        return switch (operand.kind()) {
+            case LOCATION, LABEL -> labelName((byte) value);
+            case SYSCALL -> SysCall.VALUES[(byte) value].name();
+            default -> switch (value) {
+                case Long l -> l + "L";
+                case Double d -> d + "d";
+                case String s -> '"' + s + '"';
+                default -> String.valueOf(value);
+            };
+        };
+    }
+
+    private static boolean isType(OperandKind kind) {
+        return kind == OperandKind.VECTOR_TYPE || kind == OperandKind.NUMERIC_TYPE || kind == OperandKind.INTEGRAL_TYPE
+                || kind == OperandKind.COMPARE_TYPE || kind == OperandKind.ATOMIC_TYPE || kind == OperandKind.KEY_TYPE;
+    }
+
+    /**
+     * Returns the type byte the assembler emits for a typed mnemonic, following its suffix.
+     */
+    private static byte typeOf(String name, OperandKind kind) {
+        if (kind == OperandKind.ATOMIC_TYPE) {
+            return name.endsWith("64") ? LONG_TYPE : INT_TYPE;
+        }
+        return switch (name.charAt(name.length() - 1)) {
+            case 'i' -> INT_TYPE;
+            case 'd' -> DOUBLE_TYPE;
+            case 's' -> STRING_TYPE;
+            default -> LONG_TYPE;
+        };
+    }
+
+    private static int key(byte opcode, byte type) {
+        return (opcode & 0xFF) << 8 | type & 0xFF;
+    }
+}
@@ -0,0 +1,28 @@
+package me.kuwg.micro.monitor;
+
+/**
+ * Management interface of a running {@code MicroVirtualMachine}, registered as
+ * {@code me.kuwg.micro:type=MicroVirtualMachine,id=<id>} on the platform MBean server.
+ */
+public interface MicroVirtualMachineMXBean {
+
+    int getId();
+
+    boolean isRunning();
+
+    long getInstructionsRetired();
+
+    /**
+     * Returns the instruction rate since the previous call, or since the VM started on the first call.
+     */
+    double getInstructionsPerSecond();
+
+    /**
+     * Returns the memory in use: the high-water mark below the heap plus the heap pages reserved.
+     */
+    long getMemoryBytesTouched();
+
+    long getMemorySize();
+
+    int getReaderIndex();
+}
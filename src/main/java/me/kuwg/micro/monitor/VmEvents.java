@@ -0,0 +1,97 @@
+package me.kuwg.micro.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events emitted by running {@code MicroVirtualMachine} instances. They are all in the
+ * {@code MicroVM} category and cost nothing beyond a disabled-check when no recording is active.
+ */
+public final class VmEvents {
+
+    private VmEvents() {
+        throw new RuntimeException("You cannot instantiate this class!");
+    }
+
+    @Name("me.kuwg.micro.VmStart")
+    @Label("VM Start")
+    @Category("MicroVM")
+    @StackTrace(false)
+    public static final class Start extends Event {
+        @Label("VM Id")
+        public int vm;
+
+        @Label("Bytecode Size")
+        @DataAmount
+        public int bytecodeSize;
+    }
+
+    @Name("me.kuwg.micro.VmHalt")
+    @Label("VM Halt")
+    @Category("MicroVM")
+    @StackTrace(false)
+    public static final class Halt extends Event {
+        @Label("VM Id")
+        public int vm;
+
+        @Label("Exit Status")
+        public int status;
+
+        @Label("Instructions Retired")
+        public long instructions;
+    }
+
+    @Name("me.kuwg.micro.Syscall")
+    @Label("Syscall")
+    @Description("A system call made by a guest program")
+    @Category("MicroVM")
+    @StackTrace(false)
+    public static final class Syscall extends Event {
+        @Label("VM Id")
+        public int vm;
+
+        @Label("Syscall")
+        public String syscall;
+    }
+
+    @Name("me.kuwg.micro.HotLoop")
+    @Label("Hot Loop Entry")
+    @Description("A label was jumped to often enough to be considered a hot loop")
+    @Category("MicroVM")
+    @StackTrace(false)
+    public static final class HotLoop extends Event {
+        @Label("VM Id")
+        public int vm;
+
+        @Label("Label")
+        public int label;
+
+        @Label("Iterations")
+        public long iterations;
+    }
+
+    @Name("me.kuwg.micro.MemoryHighWater")
+    @Label("Memory High-Water Mark")
+    @Description("Guest memory written below the heap so far, plus the heap pages reserved")
+    @Category("MicroVM")
+    @Period("1 s")
+    @StackTrace(false)
+    public static final class MemoryHighWater extends Event {
+        @Label("VM Id")
+        public int vm;
+
+        @Label("Bytes Touched")
+        @DataAmount
+        public long bytesTouched;
+
+        @Label("Memory Size")
+        @DataAmount
+        public long memorySize;
+    }
+}
@@ -0,0 +1,182 @@
+package me.kuwg.micro.monitor;
+
+import me.kuwg.micro.syscall.SysCall;
+import me.kuwg.micro.vm.MicroVirtualMachine;
+import jdk.jfr.FlightRecorder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.HOT_LOOP_THRESHOLD;
+
+/**
+ * The {@code VmMonitor} publishes the state of one {@link MicroVirtualMachine} to operations tooling. It emits the
+ * {@link VmEvents} to JDK Flight Recorder, and is registered as a {@link MicroVirtualMachineMXBean} once the host
+ * asks for it, so that hosts running many short programs do not register and unregister an MBean for each run.
+ *
+ * <p>The memory high-water mark is a periodic event: JFR asks for it once per second for every running VM.</p>
+ */
+public final class VmMonitor implements MicroVirtualMachineMXBean {
+    private static final AtomicInteger IDS = new AtomicInteger();
+    private static final Set<VmMonitor> RUNNING = ConcurrentHashMap.newKeySet();
+
+    static {
+        FlightRecorder.addPeriodicEvent(VmEvents.MemoryHighWater.class, () -> {
+            for (VmMonitor monitor : RUNNING) {
+                monitor.emitHighWater();
+            }
+        });
+    }
+
+    private final MicroVirtualMachine vm;
+    private final int id;
+    private final int[] jumps = new int[256];
+
+    private ObjectName name;
+    private long lastInstructions;
+    private long lastNanos;
+
+    public VmMonitor(final MicroVirtualMachine vm) {
+        this.vm = vm;
+        this.id = IDS.incrementAndGet();
+    }
+
+    public void started(final int bytecodeSize) {
+        lastInstructions = vm.instructionsRetired();
+        lastNanos = System.nanoTime();
+        RUNNING.add(this);
+
+        final VmEvents.Start event = new VmEvents.Start();
+        if (event.shouldCommit()) {
+            event.vm = id;
+            event.bytecodeSize = bytecodeSize;
+            event.commit();
+        }
+    }
+
+    public void halted(final int status) {
+        RUNNING.remove(this);
+        emitHighWater();
+
+        final VmEvents.Halt event = new VmEvents.Halt();
+        if (event.shouldCommit()) {
+            event.vm = id;
+            event.status = status;
+            event.instructions = vm.instructionsRetired();
+            event.commit();
+        }
+    }
+
+    /**
+     * Registers the MBean of the VM, unless it is already registered.
+     */
+    public synchronized void register() {
+        if (name != null) {
+            return;
+        }
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            name = new ObjectName("me.kuwg.micro:type=MicroVirtualMachine,id=" + id);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            name = null; // monitoring is best effort, the VM runs regardless
+        }
+    }
+
+    public synchronized void unregister() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException ignored) {
+            }
+            name = null;
+        }
+    }
+
+    public void jump(final byte label) {
+        final int count = ++jumps[label & 0xFF];
+        if (count != HOT_LOOP_THRESHOLD) {
+            return;
+        }
+
+        final VmEvents.HotLoop event = new VmEvents.HotLoop();
+        if (event.shouldCommit()) {
+            event.vm = id;
+            event.label = label & 0xFF;
+            event.iterations = count;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a system call. The returned event must be passed to {@link #syscallEnd}.
+     */
+    public VmEvents.Syscall syscallBegin() {
+        final VmEvents.Syscall event = new VmEvents.Syscall();
+        event.begin();
+        return event;
+    }
+
+    public void syscallEnd(final VmEvents.Syscall event, final SysCall sysCall) {
+        if (event.shouldCommit()) {
+            event.vm = id;
+            event.syscall = sysCall.name();
+            event.commit();
+        }
+    }
+
+    private void emitHighWater() {
+        final VmEvents.MemoryHighWater event = new VmEvents.MemoryHighWater();
+        if (event.shouldCommit()) {
+            event.vm = id;
+            event.bytesTouched = vm.memory().bytesUsed();
+            event.memorySize = vm.memory().size();
+            event.commit();
+        }
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return vm.isRunning();
+    }
+
+    @Override
+    public long getInstructionsRetired() {
+        return vm.instructionsRetired();
+    }
+
+    @Override
+    public synchronized double getInstructionsPerSecond() {
+        final long instructions = vm.instructionsRetired();
+        final long now = System.nanoTime();
+        final double rate = now == lastNanos ? 0.0 : (instructions - lastInstructions) * 1e9 / (now - lastNanos);
+        lastInstructions = instructions;
+        lastNanos = now;
+        return rate;
+    }
+
+    @Override
+    public long getMemoryBytesTouched() {
+        return vm.memory().bytesUsed();
+    }
+
+    @Override
+    public long getMemorySize() {
+        return vm.memory().size();
+    }
+
+    @Override
+    public int getReaderIndex() {
+        return vm.readerIndex();
+    }
+}
@@ -0,0 +1,216 @@
+package me.kuwg.micro.profiler;
+
+import me.kuwg.micro.disassembler.Disassembler;
+import me.kuwg.micro.syscall.SysCall;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static me.kuwg.micro.constants.Constants.InstructionConstants.nameOf;
+
+/**
+ * The {@code Profiler} records where a guest program spends its time: execution counts per opcode and per
+ * label, time per label, and a latency histogram per system call.
+ *
+ * <p>Labels are the only structure left in bytecode, so they stand in for loops: every time a {@code LOC}
+ * instruction runs, the label it defines is entered again. Instructions are charged to the label that was
+ * entered last, or to {@code main} before any label. When a subroutine returns, the label of its caller is
+ * resumed.</p>
+ *
+ * <p>In exact mode, time is measured at every label entry. In sampling mode, the clock is read only once every
+ * {@code sampleInterval} instructions, and the elapsed time is charged to the current label. Counting stays
+ * exact in both modes because it is a single array increment.</p>
+ *
+ * <p>When the program halts, {@link #finish()} prints a text report and, if a path was given, writes the counts
+ * as collapsed stacks ({@code main;label;OPCODE count}) for flame graph tools.</p>
+ */
+public final class Profiler {
+    private static final int MAIN = 256; // label slot for code before the first label
+    private static final int BUCKETS = 64;
+
+    private final int sampleInterval;
+    private final Path foldedOutput;
+    private final PrintStream report;
+
+    private final long[][] counts = new long[257][];
+    private final long[] labelEntries = new long[257];
+    private final long[] labelNanos = new long[257];
+    private final long[][] syscallHistograms = new long[SysCall.VALUES.length][BUCKETS];
+    private final long[] syscallNanos = new long[SysCall.VALUES.length];
+
+    private long[] current;
+    private int label = MAIN;
+    private int countdown;
+    private long mark;
+    private long startNanos;
+
+    /**
+     * @param sampleInterval {@code 0} to time every label entry, or the number of instructions between clock reads.
+     * @param foldedOutput   where to write collapsed stacks, or {@code null}.
+     * @param report         where to print the text report.
+     */
+    public Profiler(int sampleInterval, Path foldedOutput, PrintStream report) {
+        if (sampleInterval < 0) {
+            throw new IllegalArgumentException("Sample interval must not be negative.");
+        }
+        this.sampleInterval = sampleInterval;
+        this.foldedOutput = foldedOutput;
+        this.report = report;
+        this.current = counts[MAIN] = new long[256];
+        this.countdown = sampleInterval;
+    }
+
+    public void start() {
+        startNanos = mark = System.nanoTime();
+    }
+
+    public void instruction(byte instruction) {
+        current[instruction & 0xFF]++;
+
+        if (sampleInterval != 0 && --countdown == 0) {
+            countdown = sampleInterval;
+            long now = System.nanoTime();
+            labelNanos[label] += now - mark;
+            mark = now;
+        }
+    }
+
+    public void label(byte id) {
+        int next = id & 0xFF;
+        labelEntries[next]++;
+        enter(next);
+    }
+
+    /**
+     * Returns the slot of the label that instructions are currently charged to, so that a caller can go back to it
+     * with {@link #resume(int)}.
+     */
+    public int currentLabel() {
+        return label;
+    }
+
+    /**
+     * Charges the following instructions to a label that was entered before, such as the caller of a returning
+     * subroutine, without counting it as a new entry.
+     */
+    public void resume(int slot) {
+        enter(slot);
+    }
+
+    private void enter(int next) {
+        if (sampleInterval == 0) {
+            long now = System.nanoTime();
+            labelNanos[label] += now - mark;
+            mark = now;
+        }
+
+        label = next;
+        current = counts[next];
+        if (current == null) {
+            current = counts[next] = new long[256];
+        }
+    }
+
+    public void syscall(byte id, long nanos) {
+        syscallNanos[id] += nanos;
+        syscallHistograms[id][BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(nanos, 1))]++;
+    }
+
+    public void finish() {
+        long now = System.nanoTime();
+        labelNanos[label] += now - mark;
+        printReport(now - startNanos);
+
+        if (foldedOutput != null) {
+            try {
+                Files.write(foldedOutput, collapsedStacks());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write " + foldedOutput, e);
+            }
+        }
+    }
+
+    public List<String> collapsedStacks() {
+        List<String> lines = new ArrayList<>();
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (counts[slot] == null) {
+                continue;
+            }
+            String prefix = slot == MAIN ? "main;" : "main;" + labelName(slot) + ";";
+            for (int op = 0; op < 256; op++) {
+                if (counts[slot][op] != 0) {
+                    lines.add(prefix + nameOf((byte) op) + " " + counts[slot][op]);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void printReport(long totalNanos) {
+        long[] opcodes = new long[256];
+        long total = 0;
+        for (long[] slot : counts) {
+            if (slot == null) {
+                continue;
+            }
+            for (int op = 0; op < 256; op++) {
+                opcodes[op] += slot[op];
+                total += slot[op];
+            }
+        }
+
+        report.println("=== MicroVM profile ===");
+        report.printf("Instructions executed: %d in %.3f ms%s%n", total, totalNanos / 1e6,
+                sampleInterval == 0 ? "" : " (time sampled every " + sampleInterval + " instructions)");
+
+        report.println();
+        report.printf("%-12s %14s %8s%n", "Opcode", "Count", "%");
+        for (int op = 0; op < 256; op++) {
+            if (opcodes[op] != 0) {
+                report.printf("%-12s %14d %7.2f%%%n", nameOf((byte) op), opcodes[op], 100.0 * opcodes[op] / total);
+            }
+        }
+
+        report.println();
+        report.printf("%-12s %14s %14s %14s %8s%n", "Label", "Iterations", "Instructions", "Time (ms)", "%");
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (counts[slot] == null) {
+                continue;
+            }
+            long instructions = 0;
+            for (long count : counts[slot]) {
+                instructions += count;
+            }
+            report.printf("%-12s %14d %14d %14.3f %7.2f%%%n", labelName(slot), slot == MAIN ? 1 : labelEntries[slot],
+                    instructions, labelNanos[slot] / 1e6, totalNanos == 0 ? 0.0 : 100.0 * labelNanos[slot] / totalNanos);
+        }
+
+        for (int id = 0; id < SysCall.VALUES.length; id++) {
+            long calls = 0;
+            for (long bucket : syscallHistograms[id]) {
+                calls += bucket;
+            }
+            if (calls == 0) {
+                continue;
+            }
+
+            report.println();
+            report.printf("Syscall %s: %d calls, %.3f ms total, %.3f us average%n", SysCall.VALUES[id], calls,
+                    syscallNanos[id] / 1e6, syscallNanos[id] / 1e3 / calls);
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                if (syscallHistograms[id][bucket] != 0) {
+                    report.printf("  < %12d ns %12d%n", 1L << Math.min(bucket + 1, 62), syscallHistograms[id][bucket]);
+                }
+            }
+        }
+    }
+
+    private static String labelName(int slot) {
+        return slot == MAIN ? "main" : Disassembler.labelName((byte) slot);
+    }
+}
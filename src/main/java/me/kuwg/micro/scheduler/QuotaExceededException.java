@@ -0,0 +1,16 @@
+package me.kuwg.micro.scheduler;
+
+import java.io.Serial;
+
+/**
+ * Thrown through a {@link ScheduledJob} when its virtual machine used more instructions or memory than its quota
+ * allowed and was terminated by the {@link Scheduler}.
+ */
+public class QuotaExceededException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,39 @@
+package me.kuwg.micro.scheduler;
+
+import me.kuwg.micro.vm.MicroVirtualMachine;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A virtual machine submitted to a {@link Scheduler}, with its quotas. The {@link #completion()} future
+ * completes with the exit status of the program, or exceptionally with a {@link QuotaExceededException} or the
+ * exception the program failed with.
+ */
+public final class ScheduledJob {
+    private final MicroVirtualMachine machine;
+    private final long instructionQuota;
+    private final long memoryQuota;
+    private final CompletableFuture<Integer> completion = new CompletableFuture<>();
+
+    ScheduledJob(MicroVirtualMachine machine, long instructionQuota, long memoryQuota) {
+        this.machine = machine;
+        this.instructionQuota = instructionQuota;
+        this.memoryQuota = memoryQuota;
+    }
+
+    public MicroVirtualMachine machine() {
+        return machine;
+    }
+
+    public CompletableFuture<Integer> completion() {
+        return completion;
+    }
+
+    long instructionQuota() {
+        return instructionQuota;
+    }
+
+    long memoryQuota() {
+        return memoryQuota;
+    }
+}
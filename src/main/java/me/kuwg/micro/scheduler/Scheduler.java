@@ -0,0 +1,141 @@
+package me.kuwg.micro.scheduler;
+
+import me.kuwg.micro.vm.MicroVirtualMachine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The {@code Scheduler} interleaves many {@link MicroVirtualMachine} instances on a fixed pool of worker threads.
+ *
+ * <p>A worker takes the machine at the head of the run queue and runs it for one quantum of instructions. If
+ * the machine did not halt, the worker puts it back at the tail, so every machine gets a turn in round-robin
+ * order and a runaway loop only ever holds a worker for one quantum. After every quantum, the machine is
+ * checked against its quotas: the total instructions it may retire (its fuel) and the memory it may use, which
+ * is what it laid out below the heap plus the heap pages it reserved. A machine over quota is terminated.</p>
+ *
+ * <p>System calls that block, such as reading standard input, block their worker until they return.</p>
+ */
+public final class Scheduler implements AutoCloseable {
+    private final int quantum;
+    private final BlockingQueue<ScheduledJob> runQueue = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    public Scheduler(int workers, int quantum) {
+        if (workers <= 0 || quantum <= 0) {
+            throw new IllegalArgumentException("Workers and quantum must be positive.");
+        }
+        this.quantum = quantum;
+
+        for (int i = 0; i < workers; i++) {
+            this.workers.add(Thread.ofPlatform().name("MicroVM-worker-" + i).daemon(true).start(this::work));
+        }
+    }
+
+    /**
+     * Submits a loaded machine without quotas.
+     */
+    public ScheduledJob submit(MicroVirtualMachine machine) {
+        return submit(machine, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Submits a loaded machine.
+     *
+     * @param instructionQuota the most instructions the machine may retire.
+     * @param memoryQuota      the most bytes of memory the machine may use, as counted by
+     *                         {@link me.kuwg.micro.vm.VirtualMemory#bytesUsed()}.
+     */
+    public ScheduledJob submit(MicroVirtualMachine machine, long instructionQuota, long memoryQuota) {
+        if (closed) {
+            throw new IllegalStateException("Scheduler is closed.");
+        }
+
+        ScheduledJob job = new ScheduledJob(machine, instructionQuota, memoryQuota);
+        runQueue.add(job);
+        return job;
+    }
+
+    private void work() {
+        while (!closed) {
+            ScheduledJob job;
+            try {
+                job = runQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (runQuantum(job)) {
+                runQueue.add(job);
+            }
+        }
+    }
+
+    /**
+     * Runs one quantum of a job and returns whether it must be scheduled again.
+     */
+    private boolean runQuantum(ScheduledJob job) {
+        MicroVirtualMachine machine = job.machine();
+        long fuel = job.instructionQuota() - machine.instructionsRetired();
+
+        boolean running;
+        try {
+            running = machine.step(Math.min(quantum, fuel));
+        } catch (RuntimeException e) {
+            job.completion().completeExceptionally(e);
+            return false;
+        }
+
+        // memory is checked even if the program halted, so that it cannot go over quota in its last quantum
+        if (machine.memory().bytesUsed() > job.memoryQuota()) {
+            if (running) {
+                machine.terminate(1);
+            }
+            job.completion().completeExceptionally(new QuotaExceededException(
+                    "Memory quota of " + job.memoryQuota() + " bytes exceeded."));
+            return false;
+        }
+        if (running) {
+            if (machine.instructionsRetired() >= job.instructionQuota()) {
+                machine.terminate(1);
+                job.completion().completeExceptionally(new QuotaExceededException(
+                        "Instruction quota of " + job.instructionQuota() + " exceeded."));
+                return false;
+            }
+            return true;
+        }
+
+        job.completion().complete(machine.exitStatus());
+        return false;
+    }
+
+    /**
+     * Stops the workers. Jobs that have not completed are cancelled.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        ScheduledJob job;
+        while ((job = runQueue.poll()) != null) {
+            job.machine().terminate(1);
+            job.completion().completeExceptionally(new CancellationException("Scheduler closed."));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package me.kuwg.micro.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The {@code MicroClient} runs programs on a {@link MicroServer}. It sends a program, forwards its standard input
+ * while the program runs, and writes the output of the program as it arrives.
+ */
+public final class MicroClient {
+    private final Path socket;
+
+    public MicroClient(Path socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Runs a .masm source file, or a compiled file of any other name, on the server.
+     *
+     * @return the exit status of the program.
+     */
+    public int run(Path program, InputStream in, OutputStream out, OutputStream err) throws IOException {
+        byte type = program.toString().endsWith(".masm") ? Protocol.SOURCE : Protocol.BYTECODE;
+        return run(type, Files.readAllBytes(program), in, out, err);
+    }
+
+    /**
+     * Runs a program on the server. Standard input is forwarded by a daemon thread, which stays blocked reading
+     * {@code in} if the program ends before the input does.
+     *
+     * @param type {@link Protocol#SOURCE} or {@link Protocol#BYTECODE}.
+     * @return the exit status of the program.
+     */
+    int run(byte type, byte[] program, InputStream in, OutputStream out, OutputStream err) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            Protocol.write(channel, type, program);
+            Thread.ofPlatform().name("MicroVM-client-input").daemon(true).start(() -> forward(in, channel));
+
+            ByteBuffer header = ByteBuffer.allocate(Protocol.HEADER);
+            ByteBuffer payload = ByteBuffer.allocate(8192);
+            while (Protocol.readHeader(channel, header)) {
+                byte frame = header.get();
+                int length = header.getInt();
+                if (length < 0) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                if (length > payload.capacity()) {
+                    payload = ByteBuffer.allocate(length);
+                }
+                payload.clear().limit(length);
+                Protocol.readFully(channel, payload);
+
+                switch (frame) {
+                    case Protocol.STDOUT -> out.write(payload.array(), 0, length);
+                    case Protocol.STDERR -> err.write(payload.array(), 0, length);
+                    case Protocol.EXIT -> {
+                        out.flush();
+                        err.flush();
+                        return payload.getInt(0);
+                    }
+                    default -> throw new IOException("Unknown frame type " + frame);
+                }
+            }
+            throw new IOException("The server closed the connection before the program exited");
+        }
+    }
+
+    private static void forward(InputStream in, SocketChannel channel) {
+        byte[] buffer = new byte[8192];
+        try {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                synchronized (channel) {
+                    Protocol.write(channel, Protocol.STDIN, buffer, 0, read);
+                }
+            }
+            synchronized (channel) {
+                Protocol.write(channel, Protocol.STDIN, buffer, 0, 0);
+            }
+        } catch (IOException e) {
+            // the program has exited and the connection is closed
+        }
+    }
+}
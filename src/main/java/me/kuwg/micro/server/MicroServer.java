@@ -0,0 +1,150 @@
+package me.kuwg.micro.server;
+
+import me.kuwg.micro.assembler.MicroAssembler;
+import me.kuwg.micro.bytecode.Program;
+import me.kuwg.micro.syscall.RecordInput;
+import me.kuwg.micro.vm.MicroVirtualMachine;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.*;
+
+/**
+ * The {@code MicroServer} keeps a warm JVM that runs programs sent by {@link MicroClient}s over a Unix domain
+ * socket, so that a short program does not pay for starting a JVM and warming up the interpreter every time.
+ *
+ * <p>Every connection runs one program on its own virtual thread, in a fresh virtual machine whose standard input
+ * and output are connected to the client (see {@link Protocol}). Programs are verified once and cached by their
+ * source or bytecode, so a program that is sent again only costs a new machine.</p>
+ */
+public final class MicroServer implements AutoCloseable {
+    private final Path socket;
+    private final ServerSocketChannel server;
+    private final Map<Object, Program> programs = new ConcurrentHashMap<>();
+    private final Thread acceptor;
+
+    private volatile boolean closed;
+
+    /**
+     * Starts listening on the socket. A socket file left behind by a server that is no longer running is replaced.
+     *
+     * @throws IllegalStateException if another server is listening on the socket.
+     */
+    public MicroServer(Path socket) throws IOException {
+        this.socket = socket;
+        if (Files.exists(socket)) {
+            try {
+                SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+                throw new IllegalStateException("A server is already listening on " + socket);
+            } catch (IOException e) {
+                Files.delete(socket);
+            }
+        }
+
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        this.server.bind(UnixDomainSocketAddress.of(socket));
+        this.acceptor = Thread.ofPlatform().name("MicroVM-server").start(this::accept);
+    }
+
+    public Path socket() {
+        return socket;
+    }
+
+    /**
+     * Waits until the server is closed.
+     */
+    public void join() throws InterruptedException {
+        acceptor.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        Files.deleteIfExists(socket);
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel client = server.accept();
+                Thread.ofVirtual().name(DEFAULT_VM_THREAD_NAME).start(() -> serve(client));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Error accepting a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client) {
+            ByteBuffer header = ByteBuffer.allocate(Protocol.HEADER);
+            if (!Protocol.readHeader(client, header)) {
+                return;
+            }
+            byte type = header.get();
+            int length = header.getInt();
+            boolean valid = type == Protocol.SOURCE || type == Protocol.BYTECODE;
+            if (!valid || length < 0 || length > Protocol.MAX_PROGRAM) {
+                error(client, "expected a program of at most " + Protocol.MAX_PROGRAM + " bytes");
+                Protocol.writeExit(client, 1);
+                return;
+            }
+            byte[] payload = new byte[length];
+            Protocol.readFully(client, ByteBuffer.wrap(payload));
+
+            PrintStream out = new PrintStream(new BufferedOutputStream(new Protocol.Output(client, Protocol.STDOUT)),
+                    false, StandardCharsets.UTF_8);
+            int status;
+            try {
+                MicroVirtualMachine machine = new MicroVirtualMachine(program(type, payload), DEFAULT_MEMORY,
+                        DEFAULT_REGISTERS);
+                machine.out(out);
+                machine.input(new RecordInput(new Protocol.Input(client)));
+                status = machine.execute();
+            } catch (RuntimeException e) {
+                out.flush();
+                error(client, e.getMessage());
+                status = 1;
+            }
+            out.flush();
+            Protocol.writeExit(client, status);
+        } catch (IOException e) {
+            // the client went away, there is nobody left to report to
+        }
+    }
+
+    private static void error(SocketChannel client, String message) throws IOException {
+        Protocol.write(client, Protocol.STDERR, ("Error: " + message + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Program program(byte type, byte[] payload) {
+        Object key = type == Protocol.SOURCE ? new String(payload, StandardCharsets.UTF_8) : ByteBuffer.wrap(payload);
+        Program program = programs.get(key);
+        if (program == null) {
+            byte[] bytecode = key instanceof String source ? new MicroAssembler(source).assemble() : payload;
+            program = Program.load(bytecode, DEFAULT_REGISTERS, DEFAULT_MEMORY);
+            if (programs.size() >= DEFAULT_PROGRAM_CACHE) {
+                programs.clear();
+            }
+            programs.put(key, program);
+        }
+        return program;
+    }
+}
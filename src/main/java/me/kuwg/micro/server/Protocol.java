@@ -0,0 +1,159 @@
+package me.kuwg.micro.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The framing spoken between {@link MicroServer} and {@link MicroClient}. Every message is a frame of a type byte,
+ * a 4-byte big-endian length and that many bytes of payload.
+ *
+ * <p>The client opens with one {@link #SOURCE} or {@link #BYTECODE} frame holding the program, and then streams
+ * its standard input in {@link #STDIN} frames, ending with an empty one. The server streams the output of the
+ * program in {@link #STDOUT} and {@link #STDERR} frames and finishes with an {@link #EXIT} frame holding the 4-byte
+ * exit status, after which it closes the connection.</p>
+ */
+final class Protocol {
+    static final byte SOURCE = 1;
+    static final byte BYTECODE = 2;
+    static final byte STDIN = 3;
+    static final byte STDOUT = 4;
+    static final byte STDERR = 5;
+    static final byte EXIT = 6;
+
+    static final int HEADER = 1 + Integer.BYTES;
+    static final int MAX_PROGRAM = 64 << 20;
+
+    private Protocol() {
+        throw new RuntimeException("You cannot instantiate this class!");
+    }
+
+    static void write(final SocketChannel channel, final byte type, final byte[] payload, final int offset,
+                      final int length) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER).put(type).putInt(length).flip();
+        final ByteBuffer body = ByteBuffer.wrap(payload, offset, length);
+        while (header.hasRemaining() || body.hasRemaining()) {
+            channel.write(new ByteBuffer[]{header, body});
+        }
+    }
+
+    static void write(final SocketChannel channel, final byte type, final byte[] payload) throws IOException {
+        write(channel, type, payload, 0, payload.length);
+    }
+
+    static void writeExit(final SocketChannel channel, final int status) throws IOException {
+        write(channel, EXIT, ByteBuffer.allocate(Integer.BYTES).putInt(status).array());
+    }
+
+    /**
+     * Reads a frame header into {@code header}, which must hold {@link #HEADER} bytes.
+     *
+     * @return {@code false} if the connection was closed before the header.
+     */
+    static boolean readHeader(final SocketChannel channel, final ByteBuffer header) throws IOException {
+        header.clear();
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) {
+                if (header.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Connection closed inside a frame header");
+            }
+        }
+        header.flip();
+        return true;
+    }
+
+    static void readFully(final SocketChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed inside a frame");
+            }
+        }
+    }
+
+    /**
+     * The standard input of a remote program: the payloads of the {@link #STDIN} frames of a connection, read as
+     * the program asks for them. An empty frame or a closed connection ends the input.
+     */
+    static final class Input implements ReadableByteChannel {
+        private final SocketChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER);
+        private int remaining;
+        private boolean eof;
+
+        Input(final SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(final ByteBuffer destination) throws IOException {
+            while (remaining == 0) {
+                if (eof || !readHeader(channel, header)) {
+                    eof = true;
+                    return -1;
+                }
+                final byte type = header.get();
+                remaining = header.getInt();
+                if (type != STDIN || remaining < 0) {
+                    throw new IOException("Expected an input frame, instead got type " + type);
+                }
+                eof = remaining == 0;
+            }
+
+            final int limit = destination.limit();
+            destination.limit(destination.position() + Math.min(destination.remaining(), remaining));
+            try {
+                final int read = channel.read(destination);
+                if (read < 0) {
+                    throw new EOFException("Connection closed inside an input frame");
+                }
+                remaining -= read;
+                return read;
+            } finally {
+                destination.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // the connection belongs to the server
+        }
+    }
+
+    /**
+     * An output stream that sends everything written to it in frames of one type. It is meant to be wrapped in a
+     * buffered stream, so that output is sent in large frames as it is produced.
+     */
+    static final class Output extends OutputStream {
+        private final SocketChannel channel;
+        private final byte type;
+
+        Output(final SocketChannel channel, final byte type) {
+            this.channel = channel;
+            this.type = type;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (length > 0) {
+                synchronized (channel) {
+                    Protocol.write(channel, type, bytes, offset, length);
+                }
+            }
+        }
+    }
+}
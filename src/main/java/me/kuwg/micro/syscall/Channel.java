@@ -0,0 +1,204 @@
+package me.kuwg.micro.syscall;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static me.kuwg.micro.constants.Constants.BooleanConstants.TRUE;
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * A {@code Channel} is a named, bounded queue of values that connects virtual machines, backed by the {@code SEND}
+ * and {@code RECV} system calls. Channels are looked up by name in a {@link ChannelSpace}.
+ *
+ * <p>The queue is a lock-free ring buffer in which every slot has a sequence number, so any number of senders and
+ * receivers can use it. Values are stored as a type identifier and 64 raw bits, which means that only numbers and
+ * booleans can be sent. Strings have to go through memory.</p>
+ *
+ * <p>A sender blocks while the channel is full and a receiver while it is empty. Both spin briefly and then park,
+ * which on a virtual thread releases the carrier thread to other machines.</p>
+ */
+public final class Channel {
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final int SPINS = 64;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(Channel.class, "head", long.class);
+            TAIL = lookup.findVarHandle(Channel.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String name;
+    private final int mask;
+    private final long[] sequences;
+    private final long[] values;
+    private final byte[] types;
+    private final Queue<Thread> waitingSenders = new ConcurrentLinkedQueue<>();
+    private final Queue<Thread> waitingReceivers = new ConcurrentLinkedQueue<>();
+
+    private volatile long head; // next position to receive from
+    private volatile long tail; // next position to send to
+
+    Channel(final String name, final int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Channel capacity must be a power of two: " + capacity);
+        }
+        this.name = name;
+        this.mask = capacity - 1;
+        this.sequences = new long[capacity];
+        this.values = new long[capacity];
+        this.types = new byte[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences[i] = i;
+        }
+    }
+
+    /**
+     * Sends a value, waiting while the channel is full.
+     */
+    public void send(final Object value) {
+        final byte type = typeOf(value);
+        final long bits = encode(value);
+
+        if (!offer(type, bits)) {
+            await(waitingSenders, () -> offer(type, bits), "sending to");
+        }
+        wakeAll(waitingReceivers);
+    }
+
+    /**
+     * Receives a value, waiting while the channel is empty.
+     */
+    public Object receive() {
+        final Object[] received = new Object[1];
+        Object value = poll();
+
+        if (value == null) {
+            await(waitingReceivers, () -> (received[0] = poll()) != null, "receiving from");
+            value = received[0];
+        }
+        wakeAll(waitingSenders);
+        return value;
+    }
+
+    public boolean offer(final byte type, final long bits) {
+        long position = tail;
+        while (true) {
+            final int index = (int) position & mask;
+            final long difference = (long) SEQUENCE.getAcquire(sequences, index) - position;
+
+            if (difference == 0) {
+                if (TAIL.compareAndSet(this, position, position + 1)) {
+                    values[index] = bits;
+                    types[index] = type;
+                    SEQUENCE.setRelease(sequences, index, position + 1); // publishes the slot to receivers
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false; // the slot still holds a value from the previous lap, so the channel is full
+            }
+            position = tail;
+        }
+    }
+
+    /**
+     * Returns the oldest value, or {@code null} if the channel is empty.
+     */
+    public Object poll() {
+        long position = head;
+        while (true) {
+            final int index = (int) position & mask;
+            final long difference = (long) SEQUENCE.getAcquire(sequences, index) - (position + 1);
+
+            if (difference == 0) {
+                if (HEAD.compareAndSet(this, position, position + 1)) {
+                    final Object value = decode(types[index], values[index]);
+                    SEQUENCE.setRelease(sequences, index, position + mask + 1); // hands the slot to the next lap
+                    return value;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+            position = head;
+        }
+    }
+
+    /**
+     * Retries {@code attempt} until it succeeds, parking in between. The thread is enqueued before every attempt,
+     * so a wake-up that happens between a failed attempt and {@code park} is not lost.
+     */
+    private void await(final Queue<Thread> waiters, final BooleanSupplier attempt, final String action) {
+        for (int i = 0; i < SPINS; i++) {
+            Thread.onSpinWait();
+            if (attempt.getAsBoolean()) {
+                return;
+            }
+        }
+
+        final Thread current = Thread.currentThread();
+        while (true) {
+            waiters.add(current);
+            if (attempt.getAsBoolean()) {
+                waiters.remove(current);
+                return;
+            }
+
+            LockSupport.park(this);
+            waiters.remove(current);
+            if (Thread.interrupted()) {
+                throw new IllegalStateException("Interrupted while " + action + " channel " + name);
+            }
+        }
+    }
+
+    /**
+     * Wakes every waiting thread. Waking only one could pick a thread that has just succeeded on its own and strand
+     * the others; for the usual single receiver this costs nothing extra.
+     */
+    private static void wakeAll(final Queue<Thread> waiters) {
+        Thread waiter;
+        while ((waiter = waiters.poll()) != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private static byte typeOf(final Object value) {
+        return switch (value) {
+            case Byte b -> BYTE_TYPE;
+            case Integer i -> INT_TYPE;
+            case Long l -> LONG_TYPE;
+            case Double d -> DOUBLE_TYPE;
+            case Boolean b -> BOOLEAN_TYPE;
+            default -> throw new IllegalArgumentException("Cannot send " + value.getClass().getSimpleName()
+                    + " over a channel, only numbers and booleans are supported.");
+        };
+    }
+
+    private static long encode(final Object value) {
+        return switch (value) {
+            case Double d -> Double.doubleToRawLongBits(d);
+            case Boolean b -> b ? TRUE : 0;
+            default -> ((Number) value).longValue();
+        };
+    }
+
+    private static Object decode(final byte type, final long bits) {
+        return switch (type) {
+            case BYTE_TYPE -> (byte) bits;
+            case INT_TYPE -> (int) bits;
+            case LONG_TYPE -> bits;
+            case DOUBLE_TYPE -> Double.longBitsToDouble(bits);
+            case BOOLEAN_TYPE -> bits == TRUE;
+            default -> throw new IllegalStateException("Unknown type identifier: " + type);
+        };
+    }
+}
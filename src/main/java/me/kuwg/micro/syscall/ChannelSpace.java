@@ -0,0 +1,21 @@
+package me.kuwg.micro.syscall;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_CHANNEL_CAPACITY;
+
+/**
+ * A {@code ChannelSpace} is the namespace in which the {@code SEND} and {@code RECV} system calls look up
+ * {@link Channel}s by name. Every virtual machine has its own space, which its workers share, so unrelated programs
+ * in one JVM never see each other's channels. A host connects several machines by giving them the same space.
+ *
+ * <p>Channels are created on first use and live as long as their space.</p>
+ */
+public final class ChannelSpace {
+    private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+
+    public Channel named(final String name) {
+        return channels.computeIfAbsent(name, key -> new Channel(key, DEFAULT_CHANNEL_CAPACITY));
+    }
+}
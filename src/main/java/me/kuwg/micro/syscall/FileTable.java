@@ -0,0 +1,183 @@
+package me.kuwg.micro.syscall;
+
+import me.kuwg.micro.vm.VirtualMemory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.OpenOption;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * The {@code FileTable} keeps the files opened by a guest program through the {@code OPEN} system call and
+ * performs their reads and writes with an {@link AsynchronousFileChannel}.
+ *
+ * <p>Every transfer goes straight between the file and a region of {@link VirtualMemory}. While a transfer is
+ * pending, the calling thread waits on a {@link CompletableFuture}, which parks a virtual thread instead of
+ * blocking its carrier.</p>
+ *
+ * <p>Handles are the indices of the open files in this table and are never reused while the table is alive.</p>
+ *
+ * <p>Workers share the table of their parent. Each open file has its own lock, held for a whole read or write so
+ * that the transfer and the advance of the file position happen together; it is a {@link ReentrantLock} so that a
+ * waiting virtual thread parks instead of pinning its carrier.</p>
+ */
+public final class FileTable {
+    private static final CompletionHandler<Integer, CompletableFuture<Integer>> COMPLETION = new CompletionHandler<>() {
+        @Override
+        public void completed(Integer result, CompletableFuture<Integer> future) {
+            future.complete(result);
+        }
+
+        @Override
+        public void failed(Throwable exc, CompletableFuture<Integer> future) {
+            future.completeExceptionally(exc);
+        }
+    };
+
+    private final List<OpenFile> files = new ArrayList<>();
+
+    /**
+     * Opens a file and returns its handle.
+     *
+     * @param path the path of the file.
+     * @param mode {@code "r"} to read, {@code "w"} to truncate and write, {@code "a"} to append or {@code "rw"} to
+     *             read and write.
+     * @return the handle of the opened file.
+     * @throws IllegalArgumentException if the mode is unknown.
+     * @throws UncheckedIOException if the file could not be opened.
+     */
+    public synchronized int open(final String path, final String mode) {
+        final Set<OpenOption> options = switch (mode) {
+            case "r" -> Set.of(READ);
+            case "w" -> Set.of(WRITE, CREATE, TRUNCATE_EXISTING);
+            case "a" -> Set.of(WRITE, CREATE);
+            case "rw" -> Set.of(READ, WRITE, CREATE);
+            default -> throw new IllegalArgumentException("Unknown file mode: " + mode);
+        };
+
+        try {
+            final AsynchronousFileChannel channel = AsynchronousFileChannel.open(Paths.get(path), options, null);
+            final OpenFile file = new OpenFile(channel);
+            if (mode.equals("a")) {
+                file.position = channel.size();
+            }
+            files.add(file);
+            return files.size() - 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open " + path, e);
+        }
+    }
+
+    /**
+     * Reads up to {@code length} bytes of a file into memory, starting at the current position of the file.
+     *
+     * @return the number of bytes read, or {@code -1} if the end of the file was already reached.
+     */
+    public int read(final int handle, final VirtualMemory memory, final int address, final int length) {
+        final OpenFile file = get(handle);
+        final ByteBuffer buffer = memory.slice(address, length);
+
+        int total = 0;
+        file.lock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                final CompletableFuture<Integer> future = new CompletableFuture<>();
+                file.channel.read(buffer, file.position, future, COMPLETION);
+                final int read = await(future);
+                if (read < 0) {
+                    break;
+                }
+                file.position += read;
+                total += read;
+            }
+        } finally {
+            file.lock.unlock();
+        }
+
+        return total == 0 && length > 0 ? -1 : total;
+    }
+
+    /**
+     * Writes {@code length} bytes of memory to a file, starting at the current position of the file.
+     *
+     * @return the number of bytes written.
+     */
+    public int write(final int handle, final VirtualMemory memory, final int address, final int length) {
+        final OpenFile file = get(handle);
+        final ByteBuffer buffer = memory.slice(address, length);
+
+        file.lock.lock();
+        try {
+            while (buffer.hasRemaining()) {
+                final CompletableFuture<Integer> future = new CompletableFuture<>();
+                file.channel.write(buffer, file.position, future, COMPLETION);
+                file.position += await(future);
+            }
+        } finally {
+            file.lock.unlock();
+        }
+
+        return length;
+    }
+
+    public synchronized void close(final int handle) {
+        final OpenFile file = get(handle);
+        files.set(handle, null);
+        closeQuietly(file);
+    }
+
+    public synchronized void closeAll() {
+        for (int i = 0; i < files.size(); i++) {
+            final OpenFile file = files.set(i, null);
+            if (file != null) {
+                closeQuietly(file);
+            }
+        }
+    }
+
+    private synchronized OpenFile get(final int handle) {
+        final OpenFile file = handle >= 0 && handle < files.size() ? files.get(handle) : null;
+        if (file == null) {
+            throw new IllegalArgumentException("Invalid file handle: " + handle);
+        }
+        return file;
+    }
+
+    private static int await(final CompletableFuture<Integer> future) {
+        try {
+            return future.join();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(final OpenFile file) {
+        try {
+            file.channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final class OpenFile {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AsynchronousFileChannel channel;
+        private long position;
+
+        private OpenFile(final AsynchronousFileChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
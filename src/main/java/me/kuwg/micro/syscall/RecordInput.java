@@ -0,0 +1,319 @@
+package me.kuwg.micro.syscall;
+
+import me.kuwg.micro.vm.VirtualMemory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_INPUT_BUFFER;
+
+/**
+ * The {@code RecordInput} class is the buffered source behind the input system calls. It reads records (lines,
+ * numbers or raw bytes) from standard input or from a file channel through one large buffer, so that a guest
+ * program can stream millions of records with a single channel read per buffer.
+ *
+ * <p>The buffer is allocated by the first read, so a machine that never reads input does not pay for it.
+ * Integers, and decimal numbers of up to 15 digits without an exponent, are parsed directly from the buffered
+ * bytes; other numbers fall back to {@link Double#parseDouble}, and only they and lines are decoded into
+ * strings. Once a read finds nothing left, {@link #eof()} reports {@code true}.</p>
+ *
+ * <p>Workers share the input of their parent, so every read holds a lock and takes whole records. The lock is a
+ * {@link ReentrantLock} rather than a monitor, so that a virtual thread waiting for input parks instead of
+ * pinning its carrier. Checking {@link #eof()} and then reading is still two steps, and another worker may take
+ * the last record in between.</p>
+ */
+public final class RecordInput {
+    // Powers of ten that are exact doubles, so that dividing by one of them is correctly rounded
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private ReadableByteChannel channel;
+    private byte[] buffer = new byte[0];
+    private ByteBuffer view; // wraps the buffer once it is allocated
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private byte[] line = new byte[128];
+
+    public RecordInput(final ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public static RecordInput stdin() {
+        return new RecordInput(Channels.newChannel(System.in));
+    }
+
+    /**
+     * Switches the input to the specified file. Anything still buffered from the previous source is discarded.
+     */
+    public void redirect(final String path) {
+        lock.lock();
+        try {
+            final ReadableByteChannel file = FileChannel.open(Paths.get(path));
+            close();
+            channel = file;
+            position = limit = 0;
+            eof = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the next line without its terminator.
+     *
+     * @return the line, or {@code null} at the end of the input.
+     */
+    public String readLine() {
+        lock.lock();
+        try {
+            if (!fill()) {
+                return null;
+            }
+
+            int length = 0;
+            while (fill()) {
+                final byte b = buffer[position++];
+                if (b == '\n') {
+                    break;
+                }
+                if (length == line.length) {
+                    final byte[] grown = new byte[line.length << 1];
+                    System.arraycopy(line, 0, grown, 0, length);
+                    line = grown;
+                }
+                line[length++] = b;
+            }
+
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the next whitespace separated integer.
+     *
+     * @return the integer, as an {@link Integer} when it fits and as a {@link Long} otherwise, or {@code 0} at the
+     * end of the input.
+     * @throws NumberFormatException if the next token is not an integer.
+     */
+    public Number readInt() {
+        lock.lock();
+        try {
+            if (!skipWhitespace()) {
+                return 0;
+            }
+
+            final boolean negative = buffer[position] == '-';
+            if (negative || buffer[position] == '+') {
+                position++;
+            }
+
+            // Accumulated negatively, as Long.parseLong does, so that Long.MIN_VALUE can be read too
+            final long bound = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long value = 0;
+            int digits = 0;
+            while (fill() && !isWhitespace(buffer[position])) {
+                final int digit = buffer[position++] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("Expected an integer in the input.");
+                }
+                if (value < bound / 10 || value * 10 < bound + digit) {
+                    throw new NumberFormatException("Integer in the input is out of range.");
+                }
+                value = value * 10 - digit;
+                digits++;
+            }
+            if (digits == 0) {
+                throw new NumberFormatException("Expected an integer in the input.");
+            }
+            skipBufferedWhitespace();
+
+            value = negative ? value : -value;
+            return value == (int) value ? (Number) (int) value : (Number) value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the next whitespace separated floating-point number.
+     *
+     * @return the number, or {@code 0.0} at the end of the input.
+     * @throws NumberFormatException if the next token is not a number.
+     */
+    public double readDouble() {
+        lock.lock();
+        try {
+            if (!skipWhitespace()) {
+                return 0.0;
+            }
+
+            int length = 0;
+            while (fill() && !isWhitespace(buffer[position])) {
+                if (length == line.length) {
+                    final byte[] grown = new byte[line.length << 1];
+                    System.arraycopy(line, 0, grown, 0, length);
+                    line = grown;
+                }
+                line[length++] = buffer[position++];
+            }
+            skipBufferedWhitespace();
+
+            return parseDouble(length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parses the number in the first {@code length} bytes of {@code line}. A decimal whose digits fit in a double
+     * exactly is divided by a power of ten, which gives the same result as {@link Double#parseDouble}.
+     */
+    private double parseDouble(final int length) {
+        final boolean negative = line[0] == '-';
+        long mantissa = 0;
+        int scale = 0;
+        boolean point = false;
+        boolean digits = false;
+
+        for (int i = negative || line[0] == '+' ? 1 : 0; i < length; i++) {
+            final byte b = line[i];
+            if (b == '.' && !point) {
+                point = true;
+                continue;
+            }
+            final int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.parseDouble(new String(line, 0, length, StandardCharsets.ISO_8859_1));
+            }
+            mantissa = mantissa * 10 + digit;
+            if (mantissa > 1L << 53) {
+                return Double.parseDouble(new String(line, 0, length, StandardCharsets.ISO_8859_1));
+            }
+            scale += point ? 1 : 0;
+            digits = true;
+        }
+
+        if (!digits || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(line, 0, length, StandardCharsets.ISO_8859_1));
+        }
+        final double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads up to {@code length} raw bytes into memory.
+     *
+     * @return the number of bytes read, or {@code -1} at the end of the input.
+     */
+    public int readBytes(final VirtualMemory memory, final int address, final int length) {
+        lock.lock();
+        try {
+            final ByteBuffer target = memory.slice(address, length);
+
+            while (target.hasRemaining() && fill()) {
+                final int count = Math.min(target.remaining(), limit - position);
+                target.put(buffer, position, count);
+                position += count;
+            }
+
+            final int read = length - target.remaining();
+            return read == 0 && length > 0 ? -1 : read;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the input is exhausted, reading ahead if the buffer is empty.
+     */
+    public boolean eof() {
+        lock.lock();
+        try {
+            return !fill();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() {
+        lock.lock();
+        try {
+            if (!(channel instanceof FileChannel)) {
+                return; // standard input stays open for the host
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fill() {
+        if (position < limit) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+
+        if (buffer.length == 0) {
+            buffer = new byte[DEFAULT_INPUT_BUFFER];
+            view = ByteBuffer.wrap(buffer);
+        }
+        try {
+            int read;
+            do {
+                view.clear();
+                read = channel.read(view);
+            } while (read == 0);
+
+            position = 0;
+            limit = Math.max(read, 0);
+            eof = read < 0;
+            return !eof;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean skipWhitespace() {
+        while (fill()) {
+            if (!isWhitespace(buffer[position])) {
+                return true;
+            }
+            position++;
+        }
+        return false;
+    }
+
+    private void skipBufferedWhitespace() {
+        while (position < limit && isWhitespace(buffer[position])) {
+            position++;
+        }
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -2,6 +2,7 @@ package me.kuwg.micro.syscall;
 
 import me.kuwg.micro.vm.MicroVirtualMachine;
 
+
 public enum SysCall {
     PRINTLN("PRINTLN") {
         @Override
@@ -10,7 +11,162 @@ public enum SysCall {
                 throw new IllegalArgumentException("Expected 1 param in PRINTLN syscall, instead got " + params);
             }
 
-            System.out.println(vm.readValue());
+            vm.out().println(vm.readValue());
+        }
+    },
+    OPEN("OPEN") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 3) {
+                throw new IllegalArgumentException("Expected 3 params in OPEN syscall, instead got " + params);
+            }
+
+            final String path = String.valueOf(vm.readValue());
+            final String mode = String.valueOf(vm.readValue());
+            final byte register = vm.readRegisterPointer();
+
+            vm.storeRegister(register, vm.files().open(path, mode));
+        }
+    },
+    READ("READ") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 4) {
+                throw new IllegalArgumentException("Expected 4 params in READ syscall, instead got " + params);
+            }
+
+            final int handle = vm.readIntValue();
+            final int address = vm.readIntValue();
+            final int length = vm.readIntValue();
+            final byte register = vm.readRegisterPointer();
+
+            vm.storeRegister(register, vm.files().read(handle, vm.memory(), address, length));
+        }
+    },
+    WRITE("WRITE") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 3 && params != 4) {
+                throw new IllegalArgumentException("Expected 3 or 4 params in WRITE syscall, instead got " + params);
+            }
+
+            final int handle = vm.readIntValue();
+            final int address = vm.readIntValue();
+            final int length = vm.readIntValue();
+            final int written = vm.files().write(handle, vm.memory(), address, length);
+
+            if (params == 4) {
+                vm.storeRegister(vm.readRegisterPointer(), written);
+            }
+        }
+    },
+    CLOSE("CLOSE") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 1) {
+                throw new IllegalArgumentException("Expected 1 param in CLOSE syscall, instead got " + params);
+            }
+
+            vm.files().close(vm.readIntValue());
+        }
+    },
+    READ_LINE("READ_LINE") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 1) {
+                throw new IllegalArgumentException("Expected 1 param in READ_LINE syscall, instead got " + params);
+            }
+
+            final String line = vm.input().readLine();
+            vm.storeRegister(vm.readRegisterPointer(), line == null ? "" : line);
+        }
+    },
+    READ_INT("READ_INT") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 1) {
+                throw new IllegalArgumentException("Expected 1 param in READ_INT syscall, instead got " + params);
+            }
+
+            vm.storeRegister(vm.readRegisterPointer(), vm.input().readInt());
+        }
+    },
+    READ_DOUBLE("READ_DOUBLE") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 1) {
+                throw new IllegalArgumentException("Expected 1 param in READ_DOUBLE syscall, instead got " + params);
+            }
+
+            vm.storeRegister(vm.readRegisterPointer(), vm.input().readDouble());
+        }
+    },
+    READ_BYTES("READ_BYTES") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 3) {
+                throw new IllegalArgumentException("Expected 3 params in READ_BYTES syscall, instead got " + params);
+            }
+
+            final int address = vm.readIntValue();
+            final int length = vm.readIntValue();
+            final byte register = vm.readRegisterPointer();
+
+            vm.storeRegister(register, vm.input().readBytes(vm.memory(), address, length));
+        }
+    },
+    EOF("EOF") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 1) {
+                throw new IllegalArgumentException("Expected 1 param in EOF syscall, instead got " + params);
+            }
+
+            vm.storeRegister(vm.readRegisterPointer(), vm.input().eof());
+        }
+    },
+    INPUT("INPUT") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 1) {
+                throw new IllegalArgumentException("Expected 1 param in INPUT syscall, instead got " + params);
+            }
+
+            vm.input().redirect(String.valueOf(vm.readValue()));
+        }
+    },
+    SEND("SEND") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 2) {
+                throw new IllegalArgumentException("Expected 2 params in SEND syscall, instead got " + params);
+            }
+
+            final Channel channel = vm.channels().named(String.valueOf(vm.readValue()));
+            channel.send(vm.readValue());
+        }
+    },
+    RECV("RECV") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 2) {
+                throw new IllegalArgumentException("Expected 2 params in RECV syscall, instead got " + params);
+            }
+
+            final Channel channel = vm.channels().named(String.valueOf(vm.readValue()));
+            vm.storeRegister(vm.readRegisterPointer(), channel.receive());
+        }
+    },
+    HEAP_STATS("HEAP_STATS") {
+        @Override
+        public void handle(final MicroVirtualMachine vm, final int params) {
+            if (params != 3) {
+                throw new IllegalArgumentException("Expected 3 params in HEAP_STATS syscall, instead got " + params);
+            }
+
+            vm.storeRegister(vm.readRegisterPointer(), vm.memory().heapBytesInUse());
+            vm.storeRegister(vm.readRegisterPointer(), vm.memory().heapBytesReserved());
+            vm.storeRegister(vm.readRegisterPointer(), vm.memory().heapBlocksInUse());
         }
     },
     ;
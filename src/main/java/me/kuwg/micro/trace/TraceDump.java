@@ -0,0 +1,73 @@
+package me.kuwg.micro.trace;
+
+import me.kuwg.micro.syscall.SysCall;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static me.kuwg.micro.constants.Constants.InstructionConstants.nameOf;
+
+/**
+ * The {@code TraceDump} decodes a file written by a {@link Tracer} into a listing, oldest instruction first. Every
+ * line holds the sequence number of the instruction, its bytecode offset and its name, followed by {@code taken}
+ * if it transferred control and by the system call it made.
+ */
+public final class TraceDump {
+
+    private TraceDump() {
+        throw new RuntimeException("You cannot instantiate this class!");
+    }
+
+    /**
+     * Prints the last {@code limit} instructions of a trace.
+     *
+     * @throws IllegalArgumentException if the file is not a trace.
+     */
+    public static void dump(Path path, long limit, PrintStream out) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path)) {
+            if (channel.size() < Tracer.HEADER) {
+                throw new IllegalArgumentException(path + " is not a trace file.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (buffer.getLong(0) != Tracer.MAGIC || buffer.getInt(8) != Tracer.VERSION) {
+            throw new IllegalArgumentException(path + " is not a trace file of version " + Tracer.VERSION + ".");
+        }
+        int capacity = buffer.getInt(12);
+        long count = buffer.getLong(Tracer.COUNT_OFFSET);
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1
+                || buffer.capacity() < Tracer.HEADER + (long) capacity * Tracer.RECORD) {
+            throw new IllegalArgumentException(path + " is truncated.");
+        }
+
+        long first = Math.max(0, count - Math.min(capacity, limit));
+        out.printf("%d instructions recorded, showing %d%n", count, count - first);
+
+        StringBuilder line = new StringBuilder();
+        for (long sequence = first; sequence < count; sequence++) {
+            int record = Tracer.HEADER + ((int) sequence & (capacity - 1)) * Tracer.RECORD;
+            int pc = buffer.getInt(record);
+            byte opcode = buffer.get(record + 4);
+            byte flags = buffer.get(record + 5);
+            byte syscall = buffer.get(record + 6);
+
+            String name = nameOf(opcode);
+            line.setLength(0);
+            line.append(String.format("%12d  %08x  %-12s", sequence, pc, name));
+            if ((flags & Tracer.TAKEN) != 0) {
+                line.append(" taken");
+            }
+            if ((flags & Tracer.SYSCALL) != 0) {
+                line.append(" ").append(syscall >= 0 && syscall < SysCall.VALUES.length
+                        ? SysCall.VALUES[syscall].name() : "syscall " + syscall);
+            }
+            out.println(line.toString().stripTrailing());
+        }
+    }
+}
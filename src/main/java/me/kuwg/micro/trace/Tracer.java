@@ -0,0 +1,129 @@
+package me.kuwg.micro.trace;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code Tracer} records every instruction a virtual machine executes into a memory-mapped ring buffer file,
+ * so that the last instructions of a misbehaving program can be inspected afterwards with {@link TraceDump}.
+ *
+ * <p>The file starts with a header of {@value #HEADER} bytes: the magic number, the format version, the capacity in
+ * records and the number of records written so far. It is followed by the ring of fixed-size records of
+ * {@value #RECORD} bytes, in little-endian order:</p>
+ * <ul>
+ *     <li>the bytecode offset of the instruction (4 bytes);</li>
+ *     <li>its opcode (1 byte);</li>
+ *     <li>its flags (1 byte): {@link #TAKEN} if it transferred control and {@link #SYSCALL} if it made a system
+ *     call;</li>
+ *     <li>the system call id (1 byte) and a reserved byte.</li>
+ * </ul>
+ *
+ * <p>Once the ring is full, the oldest records are overwritten. Recording an instruction is a store into an array
+ * of the last {@value #BATCH} records, without allocating or locking, and full batches are copied into the mapping
+ * in bulk. The operating system writes the mapped pages back to the file, so the trace survives the JVM, except for
+ * the batch that was still pending if the JVM itself crashed. A tracer belongs to one machine and is not
+ * thread-safe.</p>
+ */
+public final class Tracer {
+    static final long MAGIC = 0x4543_4152_544D_564DL; // "MVMTRACE" in little-endian order
+    static final int VERSION = 1;
+    static final int HEADER = 32;
+    static final int RECORD = 8;
+    static final int COUNT_OFFSET = 16;
+    private static final int BATCH = 1024;
+
+    /**
+     * The largest ring whose mapping fits in a buffer.
+     */
+    public static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - HEADER) / RECORD);
+
+    public static final byte TAKEN = 1;
+    public static final byte SYSCALL = 2;
+
+    private final MappedByteBuffer buffer;
+    private final LongBuffer records;
+    private final int mask;
+    private final long[] batch = new long[BATCH];
+    private int size;
+    private long count;
+
+    private Tracer(MappedByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.records = buffer.slice(HEADER, capacity * RECORD).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Creates or truncates a trace file that holds the last {@code capacity} instructions.
+     *
+     * @param capacity a power of two.
+     */
+    public static Tracer open(Path path, int capacity) throws IOException {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Trace capacity must be a power of two: " + capacity);
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(0, MAGIC);
+        buffer.putInt(8, VERSION);
+        buffer.putInt(12, capacity);
+        buffer.putLong(COUNT_OFFSET, 0);
+        return new Tracer(buffer, capacity);
+    }
+
+    /**
+     * Records an instruction that is about to execute.
+     */
+    public void instruction(int pc, byte opcode) {
+        if (size == BATCH) {
+            flush();
+        }
+        batch[size++] = pc & 0xFFFF_FFFFL | (opcode & 0xFFL) << 32;
+    }
+
+    /**
+     * Marks the last instruction as having transferred control.
+     */
+    public void taken() {
+        batch[size - 1] |= (long) TAKEN << 40;
+    }
+
+    /**
+     * Marks the last instruction as having made a system call.
+     */
+    public void syscall(byte id) {
+        batch[size - 1] |= (long) SYSCALL << 40 | (id & 0xFFL) << 48;
+    }
+
+    public long count() {
+        return count + size;
+    }
+
+    /**
+     * Copies the pending records into the ring and updates the count in the header.
+     */
+    public void finish() {
+        flush();
+    }
+
+    private void flush() {
+        int skipped = Math.max(0, size - (mask + 1)); // records a smaller ring would overwrite within this batch
+        int index = (int) (count + skipped) & mask;
+        int first = Math.min(size - skipped, mask + 1 - index);
+        records.put(index, batch, skipped, first);
+        records.put(0, batch, skipped + first, size - skipped - first);
+        count += size;
+        size = 0;
+        buffer.putLong(COUNT_OFFSET, count);
+    }
+}
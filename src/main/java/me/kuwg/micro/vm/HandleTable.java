@@ -0,0 +1,60 @@
+package me.kuwg.micro.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code HandleTable} keeps the objects that a guest program refers to by handle, such as string builders,
+ * maps and arrays. A handle is the index of its object in the table.
+ *
+ * <p>A freed handle is reused by the next object added, so a program that frees what it no longer needs runs in
+ * bounded space, however many objects it creates over time.</p>
+ */
+final class HandleTable<T> {
+    private final List<T> objects = new ArrayList<>();
+    private int[] free = new int[8];
+    private int freeCount;
+
+    /**
+     * Adds an object and returns its handle.
+     */
+    int add(T object) {
+        if (freeCount > 0) {
+            final int handle = free[--freeCount];
+            objects.set(handle, object);
+            return handle;
+        }
+        objects.add(object);
+        return objects.size() - 1;
+    }
+
+    /**
+     * Returns the object of a handle, or {@code null} if the handle is unknown or was freed.
+     */
+    T get(int handle) {
+        return handle >= 0 && handle < objects.size() ? objects.get(handle) : null;
+    }
+
+    /**
+     * Frees a handle so that it can be reused.
+     *
+     * @return {@code false} if the handle is unknown or was already freed.
+     */
+    boolean free(int handle) {
+        if (get(handle) == null) {
+            return false;
+        }
+        objects.set(handle, null);
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = handle;
+        return true;
+    }
+
+    void clear() {
+        objects.clear();
+        freeCount = 0;
+    }
+}
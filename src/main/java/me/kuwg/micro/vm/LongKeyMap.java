@@ -0,0 +1,91 @@
+package me.kuwg.micro.vm;
+
+/**
+ * A {@link PrimitiveMap} with long keys. Byte and int keys are widened, so {@code 1} and {@code 1L} are the same
+ * key.
+ */
+final class LongKeyMap extends PrimitiveMap {
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+
+    @Override
+    void put(final Object key, final long value) {
+        put(key(key), value);
+    }
+
+    void put(final long key, final long value) {
+        final int slot = slot(key);
+        values[slot] = value;
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+    }
+
+    @Override
+    long get(final Object key, final long missing) {
+        final int slot = slot(key(key));
+        return used[slot] ? values[slot] : missing;
+    }
+
+    @Override
+    boolean remove(final Object key) {
+        int hole = slot(key(key));
+        if (!used[hole]) {
+            return false;
+        }
+
+        for (int slot = (hole + 1) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (canShift(spread(keys[slot]) & mask, hole, slot)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        used[hole] = false;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the slot that holds the key, or the empty slot where it belongs.
+     */
+    private int slot(final long key) {
+        int slot = spread(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        final long[] oldKeys = keys;
+        final long[] oldValues = values;
+        final boolean[] oldUsed = used;
+
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                final int slot = slot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static long key(final Object key) {
+        if (!(key instanceof Byte || key instanceof Integer || key instanceof Long)) {
+            throw new IllegalArgumentException("Expected an integer map key, instead got " + key);
+        }
+        return ((Number) key).longValue();
+    }
+}
@@ -1,45 +1,329 @@
 package me.kuwg.micro.vm;
 
 import me.kuwg.micro.bytecode.Bytecode;
+import me.kuwg.micro.bytecode.Program;
 import me.kuwg.micro.constants.Constants;
+import me.kuwg.micro.monitor.VmEvents;
+import me.kuwg.micro.monitor.VmMonitor;
+import me.kuwg.micro.profiler.Profiler;
+import me.kuwg.micro.syscall.ChannelSpace;
+import me.kuwg.micro.syscall.FileTable;
+import me.kuwg.micro.syscall.RecordInput;
 import me.kuwg.micro.syscall.SysCall;
-
-import java.util.HashMap;
-import java.util.Map;
-
+import me.kuwg.micro.trace.Tracer;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static me.kuwg.micro.constants.Constants.DefaultConstants.DEFAULT_CALL_DEPTH;
 import static me.kuwg.micro.constants.Constants.InstructionConstants.*;
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
 import static me.kuwg.micro.constants.Constants.ValueDeclarationConstants.*;
 
 import static me.kuwg.micro.util.OperationUtil.*;
 
 public class MicroVirtualMachine {
-    private transient final Bytecode bytecode;
+    private static final VarHandle INSTRUCTIONS;
+
+    static {
+        try {
+            INSTRUCTIONS = MethodHandles.lookup().findVarHandle(MicroVirtualMachine.class, "instructions", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private transient final int bytecodeLimit;
+    private transient Program program;
+    private transient Bytecode bytecode;
     private transient final VirtualMemory registers;
     private transient final VirtualMemory memory;
 
-    private transient final Map<Byte, Integer> locToReaderMap;
+    private transient final FileTable files;
+    private transient ChannelSpace channels;
+    private transient RecordInput input;
+    private transient VmMonitor monitor;
+    private transient final boolean worker;
+    private transient final List<MicroVirtualMachine> workers = new ArrayList<>(); // a joined worker is null
+    private transient final MicroVirtualMachine root; // the program that spawned this worker, or this machine
+    private transient final AtomicLong workerInstructions = new AtomicLong(); // retired by all workers of a root
+    private transient final HandleTable<Utf8Builder> builders = new HandleTable<>();
+    private transient final HandleTable<PrimitiveMap> maps = new HandleTable<>();
+    private transient final HandleTable<PrimitiveArray> arrays = new HandleTable<>();
+
+    // Subroutine frames: return address, register window start and window length, in bytes of the register file,
+    // and the profiler label of the caller
+    private transient final int[] frames = new int[DEFAULT_CALL_DEPTH * 4];
+    private transient int depth;
+    private transient byte[] savedRegisters = new byte[0];
+    private transient int savedTop;
 
     private volatile transient boolean running;
+    private volatile transient boolean workersStopped; // set on a root that was terminated
     private volatile transient int status;
+    private transient Thread thread;
+    private transient VMRunner stepper;
+    private transient Profiler profiler;
+    private transient Tracer tracer;
+    private transient long instructions;
+    private transient PrintStream out = System.out;
+    private transient volatile RuntimeException failure;
 
     public MicroVirtualMachine(int bcl, int mem, int reg) {
-        this.bytecode = new Bytecode(bcl);
-        this.memory = new VirtualMemory(mem);
+        if (bcl <= 0) {
+            throw new IllegalArgumentException("Size must be greater than zero.");
+        }
+        this.bytecodeLimit = bcl;
+        this.memory = new VirtualMemory(mem, true);
         this.registers = new VirtualMemory(reg);
 
-        this.locToReaderMap = new HashMap<>();
+        this.files = new FileTable();
+        this.channels = new ChannelSpace();
+        this.input = RecordInput.stdin();
+        this.worker = false;
+        this.root = this;
+
+        this.running = false;
+        this.status = 0;
+    }
+
+    /**
+     * Creates a machine that runs a shared program. The program is neither copied nor verified again, so any number
+     * of machines can be created from it cheaply.
+     */
+    public MicroVirtualMachine(Program program, int mem, int reg) {
+        this(program.length(), mem, reg);
+        install(program);
+    }
+
+    /**
+     * Creates a worker context for {@code SPAWN}. The worker shares the bytecode, memory, files and input of its
+     * parent, starts with a copy of the parent's registers and its own program counter at {@code entry}.
+     */
+    private MicroVirtualMachine(final MicroVirtualMachine parent, final int entry) {
+        this.bytecodeLimit = parent.bytecodeLimit;
+        this.program = parent.program;
+        this.bytecode = program.reader();
+        this.bytecode.readerIndex(entry);
+        this.memory = parent.memory;
+        this.registers = parent.registers.duplicate();
+
+        this.files = parent.files;
+        this.channels = parent.channels;
+        this.input = parent.input;
+        this.worker = true;
+        this.root = parent.root;
+        this.out = parent.out;
 
         this.running = false;
         this.status = 0;
     }
 
+    /**
+     * Verifies a program and loads it. A program that fails verification is rejected with a
+     * {@link me.kuwg.micro.bytecode.VerifyException} before anything is loaded. A verified program is read without
+     * bounds checks.
+     */
     public void load(final byte[] bytecode) {
-        this.bytecode.load(bytecode);
+        if (bytecode.length > bytecodeLimit) {
+            throw new IllegalArgumentException("Exceeded memory (%d > %d)".formatted(bytecode.length, bytecodeLimit));
+        }
+        load(Program.load(bytecode, registers.size(), memory.size()));
+    }
+
+    /**
+     * Loads a program that has already been verified. The program is shared, not copied.
+     *
+     * @throws IllegalArgumentException if the program was verified for a larger machine.
+     */
+    public void load(final Program program) {
+        install(program);
+    }
+
+    private void install(final Program program) {
+        if (!program.fits(registers.size(), memory.size())) {
+            throw new IllegalArgumentException("The program needs " + program.registers() + " registers and "
+                    + program.memory() + " bytes of memory, but the machine has " + registers.size() + " and "
+                    + memory.size());
+        }
+        this.program = program;
+        this.bytecode = program.reader();
+    }
+
+    public Program program() {
+        return program;
     }
 
     public void start() {
         running = true;
-        new VMRunner().start();
+        thread = new VMRunner().start();
+    }
+
+    /**
+     * Runs the loaded program on the calling thread until it halts, and returns its exit status. Unlike
+     * {@link #start()}, this does not exit the JVM.
+     */
+    public int execute() {
+        new VMRunner().execute();
+        return status;
+    }
+
+    /**
+     * Runs at most {@code budget} instructions of the loaded program on the calling thread, so that a scheduler
+     * can interleave many machines. The first step starts the program.
+     *
+     * @return {@code true} if the program has not halted yet.
+     */
+    public boolean step(final long budget) {
+        if (stepper == null) {
+            stepper = new VMRunner();
+            stepper.begin();
+        }
+
+        boolean halted = true;
+        try {
+            stepper.dispatch(budget);
+            halted = !running;
+        } finally {
+            if (halted) {
+                stepper.end();
+                stepper = null;
+            }
+        }
+        return !halted;
+    }
+
+    /**
+     * Stops a program that is being stepped, as if it had halted with the specified status. The workers it spawned,
+     * and theirs, stop after their current quantum, and a worker waiting on a channel or input is interrupted.
+     */
+    public void terminate(final int status) {
+        if (stepper != null) {
+            this.status = status;
+            workersStopped = true;
+            stepper.end();
+            stepper = null;
+        }
+    }
+
+    /**
+     * Rewinds the program so that it can be executed again. Registers and memory keep their contents, but every
+     * heap block is released.
+     */
+    public void reset() {
+        if (bytecode != null) {
+            bytecode.readerIndex(0);
+        }
+        instructions = 0;
+        workerInstructions.set(0);
+        status = 0;
+        depth = 0;
+        savedTop = 0;
+        builders.clear();
+        maps.clear();
+        arrays.clear();
+        memory.resetHeap();
+    }
+
+    public void join() throws InterruptedException {
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    public void profiler(final Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Records every instruction of this machine, but not of the workers it spawns.
+     */
+    public void tracer(final Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int exitStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the instructions retired by the program, including those of the workers it spawned. A running worker
+     * is charged every {@link Constants.DefaultConstants#DEFAULT_QUANTUM} instructions.
+     */
+    public long instructionsRetired() {
+        return (long) INSTRUCTIONS.getOpaque(this) + workerInstructions.get(); // monitoring reads it while running
+    }
+
+    /**
+     * Registers this machine on the platform MBean server, or unregisters it. Machines are not registered by
+     * default, see {@link VmMonitor}.
+     */
+    public void jmx(final boolean registered) {
+        if (registered) {
+            monitor().register();
+        } else if (monitor != null) {
+            monitor.unregister();
+        }
+    }
+
+    private VmMonitor monitor() {
+        if (monitor == null) {
+            monitor = new VmMonitor(this);
+        }
+        return monitor;
+    }
+
+    public int readerIndex() {
+        return bytecode == null ? 0 : bytecode.readerIndex();
+    }
+
+    public PrintStream out() {
+        return out;
+    }
+
+    public void out(final PrintStream out) {
+        this.out = out;
+    }
+
+    public VirtualMemory memory() {
+        return memory;
+    }
+
+    public FileTable files() {
+        return files;
+    }
+
+    public ChannelSpace channels() {
+        return channels;
+    }
+
+    /**
+     * Replaces the channels of this machine, so that machines given the same space can send values to each other.
+     */
+    public void channels(final ChannelSpace channels) {
+        this.channels = channels;
+    }
+
+    public RecordInput input() {
+        return input;
+    }
+
+    public void input(final RecordInput input) {
+        this.input = input;
+    }
+
+    public void storeRegister(final byte pointer, final Object value) {
+        registers.store(pointer, value);
     }
 
     private void iLoad() {
@@ -87,7 +371,7 @@ public class MicroVirtualMachine {
         byte jump = readByte();
 
         if (eq == 0) {
-            bytecode.readerIndex(locToReaderMap.get(jump));
+            jumpTo(jump);
         }
     }
 
@@ -97,7 +381,7 @@ public class MicroVirtualMachine {
         byte jump = readByte();
 
         if (eq > 0) {
-            bytecode.readerIndex(locToReaderMap.get(jump));
+            jumpTo(jump);
         }
     }
 
@@ -107,7 +391,7 @@ public class MicroVirtualMachine {
         byte jump = readByte();
 
         if (eq < 0) {
-            bytecode.readerIndex(locToReaderMap.get(jump));
+            jumpTo(jump);
         }
     }
 
@@ -117,7 +401,19 @@ public class MicroVirtualMachine {
         byte jump = readByte();
 
         if (eq != 0) {
-            bytecode.readerIndex(locToReaderMap.get(jump));
+            jumpTo(jump);
+        }
+    }
+
+    private void jumpTo(final byte loc) {
+        bytecode.readerIndex(program.target(loc));
+        monitor.jump(loc);
+
+        if (tracer != null) {
+            tracer.taken();
+        }
+        if (profiler != null) {
+            profiler.label(loc);
         }
     }
 
@@ -131,17 +427,32 @@ public class MicroVirtualMachine {
         byte syscallID = readByte();
         SysCall sysCall = SysCall.VALUES[syscallID];
         byte len = readByte();
+        if (tracer != null) {
+            tracer.syscall(syscallID);
+        }
 
-        sysCall.handle(this, len);
+        VmEvents.Syscall event = monitor.syscallBegin();
+        if (profiler == null) {
+            sysCall.handle(this, len);
+        } else {
+            long start = System.nanoTime();
+            sysCall.handle(this, len);
+            profiler.syscall(syscallID, System.nanoTime() - start);
+        }
+        monitor.syscallEnd(event, sysCall);
     }
 
     private void iJump() {
-        byte jump = readByteValue();
-        bytecode.readerIndex(locToReaderMap.get(jump));
+        byte jump = readByte();
+        jumpTo(jump);
     }
 
     private void iLoc() {
-        locToReaderMap.put(readByte(), bytecode.readerIndex());
+        byte loc = readByte();
+
+        if (profiler != null) {
+            profiler.label(loc);
+        }
     }
 
     private void iFetch() {
@@ -157,7 +468,7 @@ public class MicroVirtualMachine {
         byte jump = readByte();
 
         if (eq) {
-            bytecode.readerIndex(locToReaderMap.get(jump));
+            jumpTo(jump);
         }
     }
 
@@ -167,10 +478,669 @@ public class MicroVirtualMachine {
         byte jump = readByte();
 
         if (!eq) {
-            bytecode.readerIndex(locToReaderMap.get(jump));
+            jumpTo(jump);
         }
     }
 
+    private void iCompare(final byte condition) {
+        final byte type = readByte();
+        final boolean result = switch (type) {
+            case INT_TYPE -> test(condition, Integer.compare(readIntValue(), readIntValue()));
+            case LONG_TYPE -> test(condition, Long.compare(readLongValue(), readLongValue()));
+            case DOUBLE_TYPE -> testDouble(condition, readNumberValue().doubleValue(), readNumberValue().doubleValue());
+            case STRING_TYPE -> test(condition, String.valueOf(readValue()).compareTo(String.valueOf(readValue())));
+            default -> throw new IllegalArgumentException("Unknown compare type: " + type);
+        };
+        registers.store(readByte(), result);
+    }
+
+    private static boolean test(final byte condition, final int comparison) {
+        return switch (condition) {
+            case CMP_EQ -> comparison == 0;
+            case CMP_NE -> comparison != 0;
+            case CMP_LT -> comparison < 0;
+            case CMP_LE -> comparison <= 0;
+            case CMP_GT -> comparison > 0;
+            case CMP_GE -> comparison >= 0;
+            default -> throw new IllegalArgumentException("Unknown compare condition: " + condition);
+        };
+    }
+
+    private static boolean testDouble(final byte condition, final double left, final double right) {
+        if (Double.isNaN(left) || Double.isNaN(right)) {
+            return condition == CMP_NE; // NaN is unordered, so only != holds
+        }
+        return test(condition, left < right ? -1 : left > right ? 1 : 0); // -0.0 equals 0.0, unlike Double.compare
+    }
+
+    private void iBinary(final byte operation) {
+        final byte type = readByte();
+        final Object result = switch (type) {
+            case INT_TYPE -> binary(operation, readIntValue(), readIntValue());
+            case LONG_TYPE -> binary(operation, readLongValue(), readLongValue());
+            case DOUBLE_TYPE -> binary(operation, readNumberValue().doubleValue(), readNumberValue().doubleValue());
+            default -> throw new IllegalArgumentException("Unknown operand type: " + type);
+        };
+        registers.store(readByte(), result);
+    }
+
+    private static int binary(final byte operation, final int left, final int right) {
+        return switch (operation) {
+            case MOD -> {
+                if (right == 0) {
+                    throw new ArithmeticException("Division by zero.");
+                }
+                yield left % right;
+            }
+            case MIN -> Math.min(left, right);
+            case MAX -> Math.max(left, right);
+            case AND -> left & right;
+            case OR -> left | right;
+            case XOR -> left ^ right;
+            case SHL -> left << right;
+            case SHR -> left >> right;
+            case USHR -> left >>> right;
+            default -> throw new IllegalArgumentException("Unknown int operation: " + operation);
+        };
+    }
+
+    private static long binary(final byte operation, final long left, final long right) {
+        return switch (operation) {
+            case MOD -> {
+                if (right == 0) {
+                    throw new ArithmeticException("Division by zero.");
+                }
+                yield left % right;
+            }
+            case MIN -> Math.min(left, right);
+            case MAX -> Math.max(left, right);
+            case AND -> left & right;
+            case OR -> left | right;
+            case XOR -> left ^ right;
+            case SHL -> left << right;
+            case SHR -> left >> right;
+            case USHR -> left >>> right;
+            default -> throw new IllegalArgumentException("Unknown long operation: " + operation);
+        };
+    }
+
+    private static double binary(final byte operation, final double left, final double right) {
+        return switch (operation) {
+            case MOD -> left % right;
+            case MIN -> Math.min(left, right);
+            case MAX -> Math.max(left, right);
+            default -> throw new IllegalArgumentException("Unknown double operation: " + operation);
+        };
+    }
+
+    private void iUnary(final byte operation) {
+        final byte type = readByte();
+        final Object result = switch (type) {
+            case INT_TYPE -> {
+                final int value = readIntValue();
+                yield switch (operation) {
+                    case ABS -> Math.abs(value);
+                    case POPCNT -> Integer.bitCount(value);
+                    case CLZ -> Integer.numberOfLeadingZeros(value);
+                    case CTZ -> Integer.numberOfTrailingZeros(value);
+                    default -> throw new IllegalArgumentException("Unknown int operation: " + operation);
+                };
+            }
+            case LONG_TYPE -> {
+                final long value = readLongValue();
+                yield switch (operation) {
+                    case ABS -> Math.abs(value);
+                    case POPCNT -> (long) Long.bitCount(value);
+                    case CLZ -> (long) Long.numberOfLeadingZeros(value);
+                    case CTZ -> (long) Long.numberOfTrailingZeros(value);
+                    default -> throw new IllegalArgumentException("Unknown long operation: " + operation);
+                };
+            }
+            case DOUBLE_TYPE -> {
+                if (operation != ABS) {
+                    throw new IllegalArgumentException("Unknown double operation: " + operation);
+                }
+                yield Math.abs(readNumberValue().doubleValue());
+            }
+            default -> throw new IllegalArgumentException("Unknown operand type: " + type);
+        };
+        registers.store(readByte(), result);
+    }
+
+    private void iFma() {
+        final byte type = readByte();
+        final Object result = switch (type) {
+            case INT_TYPE -> readIntValue() * readIntValue() + readIntValue();
+            case LONG_TYPE -> readLongValue() * readLongValue() + readLongValue();
+            case DOUBLE_TYPE -> Math.fma(readNumberValue().doubleValue(), readNumberValue().doubleValue(),
+                    readNumberValue().doubleValue());
+            default -> throw new IllegalArgumentException("Unknown operand type: " + type);
+        };
+        registers.store(readByte(), result);
+    }
+
+    private void iSqrt() {
+        final double value = readNumberValue().doubleValue();
+        registers.store(readByte(), Math.sqrt(value));
+    }
+
+    private void iAlloc() {
+        final int size = readIntValue();
+        final byte pointer = readByte();
+        registers.store(pointer, memory.allocate(size));
+    }
+
+    private void iFree() {
+        memory.free(readIntValue());
+    }
+
+    private void iMapNew() {
+        final byte keyType = readByte();
+        final byte pointer = readByte();
+        registers.store(pointer, maps.add(PrimitiveMap.of(keyType)));
+    }
+
+    private void iMapPut() {
+        final PrimitiveMap map = map(readIntValue());
+        final Object key = readValue();
+        map.put(key, readLongValue());
+    }
+
+    private void iMapGet() {
+        final PrimitiveMap map = map(readIntValue());
+        final Object key = readValue();
+        final long missing = readLongValue();
+        registers.store(readByte(), map.get(key, missing));
+    }
+
+    private void iMapRemove() {
+        final PrimitiveMap map = map(readIntValue());
+        final Object key = readValue();
+        registers.store(readByte(), map.remove(key));
+    }
+
+    private void iMapSize() {
+        final PrimitiveMap map = map(readIntValue());
+        registers.store(readByte(), map.size());
+    }
+
+    private void iMapFree() {
+        final int handle = readIntValue();
+        if (!maps.free(handle)) {
+            throw new IllegalArgumentException("Unknown map handle: " + handle);
+        }
+    }
+
+    private PrimitiveMap map(final int handle) {
+        final PrimitiveMap map = maps.get(handle);
+        if (map == null) {
+            throw new IllegalArgumentException("Unknown map handle: " + handle);
+        }
+        return map;
+    }
+
+    private void iArrNew() {
+        final byte type = readByte();
+        final byte pointer = readByte();
+        registers.store(pointer, arrays.add(new PrimitiveArray(type)));
+    }
+
+    private void iArrPush() {
+        final PrimitiveArray array = array(readIntValue());
+        array.push(readNumberValue());
+    }
+
+    private void iArrGet() {
+        final PrimitiveArray array = array(readIntValue());
+        final int index = readIntValue();
+        final byte pointer = readByte();
+        switch (array.type()) {
+            case INT_TYPE -> registers.store(pointer, array.getInt(index));
+            case LONG_TYPE -> registers.store(pointer, array.getLong(index));
+            default -> registers.store(pointer, array.getDouble(index));
+        }
+    }
+
+    private void iArrSet() {
+        final PrimitiveArray array = array(readIntValue());
+        final int index = readIntValue();
+        array.set(index, readNumberValue());
+    }
+
+    private void iArrLength() {
+        final PrimitiveArray array = array(readIntValue());
+        registers.store(readByte(), array.length());
+    }
+
+    private void iArrFree() {
+        final int handle = readIntValue();
+        if (!arrays.free(handle)) {
+            throw new IllegalArgumentException("Unknown array handle: " + handle);
+        }
+    }
+
+    private PrimitiveArray array(final int handle) {
+        final PrimitiveArray array = arrays.get(handle);
+        if (array == null) {
+            throw new IllegalArgumentException("Unknown array handle: " + handle);
+        }
+        return array;
+    }
+
+    private void iMemcpy() {
+        final int source = readIntValue();
+        final int destination = readIntValue();
+        final int length = readIntValue();
+        memory.copy(source, destination, length);
+    }
+
+    private void iMemset() {
+        final int destination = readIntValue();
+        final byte value = (byte) readIntValue();
+        final int length = readIntValue();
+        memory.fill(destination, value, length);
+    }
+
+    private void iMemcmp() {
+        final int left = readIntValue();
+        final int right = readIntValue();
+        final int length = readIntValue();
+        final byte pointer = readByte();
+        registers.store(pointer, memory.compare(left, right, length));
+    }
+
+    private void iVadd() {
+        final byte type = readByte();
+        final int a = readIntValue();
+        final int b = readIntValue();
+        final int dst = readIntValue();
+        final int n = readIntValue();
+        checkVector(type, n, a, b, dst);
+        checkDestination(type, n, dst, a, b, dst);
+        VectorUnit.INSTANCE.add(type, memory.bytes(), a, b, dst, n);
+        memory.touch(dst, dst + n * VectorUnit.width(type));
+    }
+
+    private void iVmul() {
+        final byte type = readByte();
+        final int a = readIntValue();
+        final int b = readIntValue();
+        final int dst = readIntValue();
+        final int n = readIntValue();
+        checkVector(type, n, a, b, dst);
+        checkDestination(type, n, dst, a, b, dst);
+        VectorUnit.INSTANCE.mul(type, memory.bytes(), a, b, dst, n);
+        memory.touch(dst, dst + n * VectorUnit.width(type));
+    }
+
+    private void iVfma() {
+        final byte type = readByte();
+        final int a = readIntValue();
+        final int b = readIntValue();
+        final int c = readIntValue();
+        final int dst = readIntValue();
+        final int n = readIntValue();
+        checkVector(type, n, a, b, c);
+        checkVector(type, n, dst, dst, dst);
+        checkDestination(type, n, dst, a, b, c);
+        VectorUnit.INSTANCE.fma(type, memory.bytes(), a, b, c, dst, n);
+        memory.touch(dst, dst + n * VectorUnit.width(type));
+    }
+
+    private void iVsum() {
+        final byte type = readByte();
+        final int a = readIntValue();
+        final int n = readIntValue();
+        final byte pointer = readByte();
+        checkVector(type, n, a, a, a);
+        registers.store(pointer, VectorUnit.INSTANCE.sum(type, memory.bytes(), a, n));
+    }
+
+    private void iVmin() {
+        final byte type = readByte();
+        final int a = readIntValue();
+        final int n = readIntValue();
+        final byte pointer = readByte();
+        checkVector(type, n, a, a, a);
+        registers.store(pointer, VectorUnit.INSTANCE.min(type, memory.bytes(), a, n));
+    }
+
+    private void iVmax() {
+        final byte type = readByte();
+        final int a = readIntValue();
+        final int n = readIntValue();
+        final byte pointer = readByte();
+        checkVector(type, n, a, a, a);
+        registers.store(pointer, VectorUnit.INSTANCE.max(type, memory.bytes(), a, n));
+    }
+
+    private void iLd8() {
+        final int address = readIntValue();
+        final byte pointer = readByte();
+        registers.store(pointer, memory.getByte(address));
+    }
+
+    private void iLd32() {
+        final int address = readIntValue();
+        final byte pointer = readByte();
+        registers.store(pointer, memory.getInt(address));
+    }
+
+    private void iLd64() {
+        final int address = readIntValue();
+        final byte pointer = readByte();
+        registers.store(pointer, memory.getLong(address));
+    }
+
+    private void iLdf64() {
+        final int address = readIntValue();
+        final byte pointer = readByte();
+        registers.store(pointer, memory.getDouble(address));
+    }
+
+    private void iSt8() {
+        final int address = readIntValue();
+        memory.putByte(address, readNumberValue().byteValue());
+    }
+
+    private void iSt32() {
+        final int address = readIntValue();
+        memory.putInt(address, readNumberValue().intValue());
+    }
+
+    private void iSt64() {
+        final int address = readIntValue();
+        memory.putLong(address, readNumberValue().longValue());
+    }
+
+    private void iStf64() {
+        final int address = readIntValue();
+        memory.putDouble(address, readNumberValue().doubleValue());
+    }
+
+    private void iLabels() {
+        final int count = bytecode.readInt();
+        bytecode.readerIndex(bytecode.readerIndex() + count * (1 + Integer.BYTES)); // the program has the table
+    }
+
+    private void iSpawn() {
+        final byte loc = readByte();
+        final byte pointer = readByte();
+        final int entry = program.target(loc);
+        if (entry < 0) {
+            throw new IllegalStateException("Cannot spawn at undefined location: " + loc);
+        }
+
+        final int handle = workers.size();
+        final MicroVirtualMachine child = new MicroVirtualMachine(this, entry);
+        workers.add(child);
+        child.thread = Thread.ofVirtual().name(Constants.DefaultConstants.DEFAULT_WORKER_THREAD_NAME + handle)
+                .start(child::runWorker);
+        registers.store(pointer, handle);
+    }
+
+    private void iJoin() {
+        final int handle = readIntValue();
+        final byte pointer = readByte();
+        if (handle < 0 || handle >= workers.size() || workers.get(handle) == null) {
+            throw new IllegalArgumentException("Unknown worker handle: " + handle);
+        }
+
+        final MicroVirtualMachine child = workers.get(handle);
+        try {
+            child.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while joining worker " + handle, e);
+        }
+        workers.set(handle, null); // the handle is not reused, but the worker can be collected
+
+        if (child.failure != null) {
+            throw new IllegalStateException("Worker " + handle + " failed", child.failure);
+        }
+        registers.store(pointer, child.status);
+    }
+
+    private void iCas() {
+        final byte type = readByte();
+        final int address = readIntValue();
+        final Number expected = readNumberValue();
+        final Number value = readNumberValue();
+        final byte pointer = readByte();
+        final boolean swapped = type == LONG_TYPE
+                ? memory.compareAndSetLong(address, expected.longValue(), value.longValue())
+                : memory.compareAndSetInt(address, expected.intValue(), value.intValue());
+        registers.store(pointer, swapped);
+    }
+
+    private void iFetchAdd() {
+        final byte type = readByte();
+        final int address = readIntValue();
+        final Number delta = readNumberValue();
+        final byte pointer = readByte();
+        if (type == LONG_TYPE) {
+            registers.store(pointer, memory.getAndAddLong(address, delta.longValue()));
+        } else {
+            registers.store(pointer, memory.getAndAddInt(address, delta.intValue()));
+        }
+    }
+
+    private void iCallSub() {
+        final byte loc = readByte();
+        final int start = readByte();
+        final int length = readByte() & 0xFF;
+        if (depth == DEFAULT_CALL_DEPTH) {
+            throw new IllegalStateException("Call stack overflow, subroutines are nested deeper than " + DEFAULT_CALL_DEPTH);
+        }
+
+        if (length != 0) {
+            registers.checkRegion(start, length);
+            if (savedTop + length > savedRegisters.length) {
+                savedRegisters = Arrays.copyOf(savedRegisters, Math.max(savedRegisters.length * 2, savedTop + length));
+            }
+            System.arraycopy(registers.bytes(), start, savedRegisters, savedTop, length);
+            savedTop += length;
+        }
+
+        final int frame = depth++ * 4;
+        frames[frame] = bytecode.readerIndex();
+        frames[frame + 1] = start;
+        frames[frame + 2] = length;
+        frames[frame + 3] = profiler != null ? profiler.currentLabel() : 0;
+        jumpTo(loc);
+    }
+
+    private void iRet() {
+        if (depth == 0) {
+            throw new IllegalStateException("Return without a subroutine call");
+        }
+
+        final int frame = --depth * 4;
+        final int length = frames[frame + 2];
+        if (length != 0) {
+            savedTop -= length;
+            System.arraycopy(savedRegisters, savedTop, registers.bytes(), frames[frame + 1], length);
+        }
+        bytecode.readerIndex(frames[frame]);
+        if (tracer != null) {
+            tracer.taken();
+        }
+        if (profiler != null) {
+            profiler.resume(frames[frame + 3]);
+        }
+    }
+
+    private void iStrings() {
+        final int count = bytecode.readInt();
+        for (int i = 0; i < count; i++) {
+            final int length = bytecode.readInt();
+            bytecode.readerIndex(bytecode.readerIndex() + length);
+        }
+    }
+
+    private void iSbNew() {
+        final byte pointer = readByte();
+        registers.store(pointer, builders.add(new Utf8Builder()));
+    }
+
+    private void iSbAppend() {
+        final Utf8Builder builder = builder(readIntValue());
+        if (nextIsStringConstant()) {
+            builder.append(readConstantBytes());
+        } else {
+            builder.append(readValue());
+        }
+    }
+
+    private void iSbLength() {
+        final Utf8Builder builder = builder(readIntValue());
+        final byte pointer = readByte();
+        registers.store(pointer, builder.length());
+    }
+
+    private void iSbSubstr() {
+        final Utf8Builder builder = builder(readIntValue());
+        final int start = readIntValue();
+        final int end = readIntValue();
+        final byte pointer = readByte();
+        registers.store(pointer, builders.add(builder.substring(start, end)));
+    }
+
+    private void iSbCompare() {
+        final Utf8Builder builder = builder(readIntValue());
+        final int result;
+        if (nextIsStringConstant()) {
+            final byte[] constant = readConstantBytes();
+            result = builder.compare(constant, constant.length);
+        } else {
+            final Object other = readValue();
+            if (other instanceof String s) {
+                final byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                result = builder.compare(utf8, utf8.length);
+            } else if (other instanceof Number n) {
+                result = builder.compare(builder(n.intValue()));
+            } else {
+                throw new RuntimeException("Expected string or builder handle, instead got " + other);
+            }
+        }
+        registers.store(readByte(), result);
+    }
+
+    private void iSbPrint() {
+        builder(readIntValue()).println(out);
+    }
+
+    private void iSbClear() {
+        builder(readIntValue()).clear();
+    }
+
+    private void iSbFree() {
+        final int handle = readIntValue();
+        if (!builders.free(handle)) {
+            throw new IllegalArgumentException("Unknown string builder handle: " + handle);
+        }
+    }
+
+    private Utf8Builder builder(final int handle) {
+        final Utf8Builder builder = builders.get(handle);
+        if (builder == null) {
+            throw new IllegalArgumentException("Unknown string builder handle: " + handle);
+        }
+        return builder;
+    }
+
+    private boolean nextIsStringConstant() {
+        return bytecode.peekByte() == VALUE && bytecode.peekNextByte() == STRING_TYPE;
+    }
+
+    private byte[] readConstantBytes() {
+        readByte(); // VALUE
+        readByte(); // STRING_TYPE
+        return bytecode.constantBytes(bytecode.readInt());
+    }
+
+    /**
+     * Runs a worker in quanta, charging the instructions of every quantum to the program that spawned it, so that
+     * a runaway worker counts against the quota of its program.
+     */
+    private void runWorker() {
+        final VMRunner runner = new VMRunner();
+        try {
+            runner.begin();
+            long charged = 0;
+            try {
+                while (running && !root.workersStopped) {
+                    runner.dispatch(Constants.DefaultConstants.DEFAULT_QUANTUM);
+                    root.workerInstructions.addAndGet(instructions - charged);
+                    charged = instructions;
+                }
+            } finally {
+                root.workerInstructions.addAndGet(instructions - charged);
+                runner.end();
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Stops every worker that has not been joined, interrupting it if it waits. Each of them does the same for its
+     * own workers before it ends.
+     */
+    private void stopWorkers() {
+        for (MicroVirtualMachine child : workers) {
+            if (child != null) {
+                child.running = false;
+                child.thread.interrupt();
+            }
+        }
+    }
+
+    private void awaitWorkers() {
+        for (int i = 0; i < workers.size(); i++) {
+            final MicroVirtualMachine child = workers.get(i);
+            if (child == null) {
+                continue;
+            }
+            try {
+                child.thread.join();
+            } catch (InterruptedException e) {
+                if (!root.workersStopped) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                i--; // a stopped worker was interrupted, but must still wait for its own workers
+            }
+        }
+        workers.clear();
+    }
+
+    private void checkVector(final byte type, final int n, final int a, final int b, final int c) {
+        if (n < 0 || n > Integer.MAX_VALUE / VectorUnit.width(type)) {
+            throw new IllegalArgumentException("Invalid vector length: " + n);
+        }
+        final int length = n * VectorUnit.width(type);
+        memory.checkRegion(a, length);
+        memory.checkRegion(b, length);
+        memory.checkRegion(c, length);
+    }
+
+    /**
+     * Rejects a destination that partially overlaps a source. Writing in place over a source is allowed, but a
+     * shifted overlap would be read after it was written, in an order that differs between the SIMD and the scalar
+     * implementation.
+     */
+    private void checkDestination(final byte type, final int n, final int dst, final int a, final int b, final int c) {
+        final int length = n * VectorUnit.width(type);
+        if (overlaps(dst, a, length) || overlaps(dst, b, length) || overlaps(dst, c, length)) {
+            throw new IllegalArgumentException("Vector destination " + dst + " partially overlaps a source");
+        }
+    }
+
+    private static boolean overlaps(final int dst, final int src, final int length) {
+        return dst != src && src < dst + length && dst < src + length;
+    }
+
     public Object readValue() {
         final byte dType = readByte();
 
@@ -181,6 +1151,16 @@ public class MicroVirtualMachine {
         return bytecode.read();
     }
 
+    public byte readRegisterPointer() {
+        final byte dType = readByte();
+
+        if (dType != REGISTER) {
+            throw new RuntimeException("Expected register, instead got value");
+        }
+
+        return readByte();
+    }
+
     private byte readInstructionByte() {
         try {
             return bytecode.readByte();
@@ -223,6 +1203,16 @@ public class MicroVirtualMachine {
         return (Number) result;
     }
 
+    private long readLongValue() {
+        Object result = readValue();
+
+        if (!(result instanceof Integer || result instanceof Byte || result instanceof Long)) {
+            throw new RuntimeException("Expected long value, instead got " + result.getClass().getSimpleName());
+        }
+
+        return ((Number) result).longValue();
+    }
+
     private boolean readBoolValue() {
         Object result = readValue();
 
@@ -236,14 +1226,69 @@ public class MicroVirtualMachine {
 
     public class VMRunner implements Runnable {
 
-        protected void start() {
-            new Thread(this, Constants.DefaultConstants.DEFAULT_VM_THREAD_NAME).start();
+        protected Thread start() {
+            return Thread.ofVirtual().name(Constants.DefaultConstants.DEFAULT_VM_THREAD_NAME).start(this);
         }
 
         @Override
         public void run() {
-            while (running) {
+            execute();
+            System.exit(status);
+        }
+
+        protected void execute() {
+            begin();
+            try {
+                dispatch(Long.MAX_VALUE);
+            } finally {
+                end();
+            }
+        }
+
+        private void begin() {
+            if (program == null) {
+                throw new IllegalStateException("No program is loaded.");
+            }
+            running = true;
+            if (!worker) {
+                workersStopped = false;
+            }
+            monitor().started(bytecode.length());
+            if (profiler != null) {
+                profiler.start();
+            }
+        }
+
+        private void end() {
+            running = false;
+            if (root.workersStopped) {
+                stopWorkers();
+            }
+            awaitWorkers(); // workers share memory and files, so they must finish first
+            if (profiler != null) {
+                profiler.finish();
+            }
+            if (tracer != null) {
+                tracer.finish();
+            }
+
+            if (!worker) {
+                files.closeAll();
+                input.close();
+            }
+            monitor.halted(status);
+        }
+
+        private void dispatch(long budget) {
+            while (running && budget-- > 0) {
                 byte instruction = readInstructionByte();
+                instructions++;
+                if (profiler != null) {
+                    profiler.instruction(instruction);
+                }
+                if (tracer != null) {
+                    tracer.instruction(bytecode.readerIndex() - 1, instruction);
+                }
                 switch (instruction) {
                     case LOAD: {
                         iLoad();
@@ -313,13 +1358,283 @@ public class MicroVirtualMachine {
                         iJIF();
                         break;
                     }
+                    case MEMCPY: {
+                        iMemcpy();
+                        break;
+                    }
+                    case MEMSET: {
+                        iMemset();
+                        break;
+                    }
+                    case MEMCMP: {
+                        iMemcmp();
+                        break;
+                    }
+                    case VADD: {
+                        iVadd();
+                        break;
+                    }
+                    case VMUL: {
+                        iVmul();
+                        break;
+                    }
+                    case VFMA: {
+                        iVfma();
+                        break;
+                    }
+                    case VSUM: {
+                        iVsum();
+                        break;
+                    }
+                    case VMIN: {
+                        iVmin();
+                        break;
+                    }
+                    case VMAX: {
+                        iVmax();
+                        break;
+                    }
+                    case LD8: {
+                        iLd8();
+                        break;
+                    }
+                    case LD32: {
+                        iLd32();
+                        break;
+                    }
+                    case LD64: {
+                        iLd64();
+                        break;
+                    }
+                    case LDF64: {
+                        iLdf64();
+                        break;
+                    }
+                    case ST8: {
+                        iSt8();
+                        break;
+                    }
+                    case ST32: {
+                        iSt32();
+                        break;
+                    }
+                    case ST64: {
+                        iSt64();
+                        break;
+                    }
+                    case STF64: {
+                        iStf64();
+                        break;
+                    }
+                    case LABELS: {
+                        iLabels();
+                        break;
+                    }
+                    case SPAWN: {
+                        iSpawn();
+                        break;
+                    }
+                    case JOIN: {
+                        iJoin();
+                        break;
+                    }
+                    case CAS: {
+                        iCas();
+                        break;
+                    }
+                    case FETCH_ADD: {
+                        iFetchAdd();
+                        break;
+                    }
+                    case CALL_SUB: {
+                        iCallSub();
+                        break;
+                    }
+                    case RET: {
+                        iRet();
+                        break;
+                    }
+                    case STRINGS: {
+                        iStrings();
+                        break;
+                    }
+                    case SB_NEW: {
+                        iSbNew();
+                        break;
+                    }
+                    case SB_APPEND: {
+                        iSbAppend();
+                        break;
+                    }
+                    case SB_LENGTH: {
+                        iSbLength();
+                        break;
+                    }
+                    case SB_SUBSTR: {
+                        iSbSubstr();
+                        break;
+                    }
+                    case SB_COMPARE: {
+                        iSbCompare();
+                        break;
+                    }
+                    case SB_PRINT: {
+                        iSbPrint();
+                        break;
+                    }
+                    case SB_CLEAR: {
+                        iSbClear();
+                        break;
+                    }
+                    case SB_FREE: {
+                        iSbFree();
+                        break;
+                    }
+                    case ALLOC: {
+                        iAlloc();
+                        break;
+                    }
+                    case FREE: {
+                        iFree();
+                        break;
+                    }
+                    case MAP_NEW: {
+                        iMapNew();
+                        break;
+                    }
+                    case MAP_PUT: {
+                        iMapPut();
+                        break;
+                    }
+                    case MAP_GET: {
+                        iMapGet();
+                        break;
+                    }
+                    case MAP_REMOVE: {
+                        iMapRemove();
+                        break;
+                    }
+                    case MAP_SIZE: {
+                        iMapSize();
+                        break;
+                    }
+                    case MAP_FREE: {
+                        iMapFree();
+                        break;
+                    }
+                    case ARR_NEW: {
+                        iArrNew();
+                        break;
+                    }
+                    case ARR_PUSH: {
+                        iArrPush();
+                        break;
+                    }
+                    case ARR_GET: {
+                        iArrGet();
+                        break;
+                    }
+                    case ARR_SET: {
+                        iArrSet();
+                        break;
+                    }
+                    case ARR_LENGTH: {
+                        iArrLength();
+                        break;
+                    }
+                    case ARR_FREE: {
+                        iArrFree();
+                        break;
+                    }
+                    case CMP_EQ: {
+                        iCompare(CMP_EQ);
+                        break;
+                    }
+                    case CMP_NE: {
+                        iCompare(CMP_NE);
+                        break;
+                    }
+                    case CMP_LT: {
+                        iCompare(CMP_LT);
+                        break;
+                    }
+                    case CMP_LE: {
+                        iCompare(CMP_LE);
+                        break;
+                    }
+                    case CMP_GT: {
+                        iCompare(CMP_GT);
+                        break;
+                    }
+                    case CMP_GE: {
+                        iCompare(CMP_GE);
+                        break;
+                    }
+                    case MOD: {
+                        iBinary(MOD);
+                        break;
+                    }
+                    case MIN: {
+                        iBinary(MIN);
+                        break;
+                    }
+                    case MAX: {
+                        iBinary(MAX);
+                        break;
+                    }
+                    case ABS: {
+                        iUnary(ABS);
+                        break;
+                    }
+                    case FMA: {
+                        iFma();
+                        break;
+                    }
+                    case SQRT: {
+                        iSqrt();
+                        break;
+                    }
+                    case AND: {
+                        iBinary(AND);
+                        break;
+                    }
+                    case OR: {
+                        iBinary(OR);
+                        break;
+                    }
+                    case XOR: {
+                        iBinary(XOR);
+                        break;
+                    }
+                    case SHL: {
+                        iBinary(SHL);
+                        break;
+                    }
+                    case SHR: {
+                        iBinary(SHR);
+                        break;
+                    }
+                    case USHR: {
+                        iBinary(USHR);
+                        break;
+                    }
+                    case POPCNT: {
+                        iUnary(POPCNT);
+                        break;
+                    }
+                    case CLZ: {
+                        iUnary(CLZ);
+                        break;
+                    }
+                    case CTZ: {
+                        iUnary(CTZ);
+                        break;
+                    }
                     default: {
                         throw new RuntimeException("Unknown instruction: " + instruction);
                     }
                 }
             }
-
-            System.exit(status);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package me.kuwg.micro.vm;
+
+import java.util.Arrays;
+
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * A growable array of ints, longs or doubles for the array instructions, backed by a primitive array of its element
+ * type. Values are converted to the element type when they are stored, like the vector instructions do.
+ */
+final class PrimitiveArray {
+    private final byte type;
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private int length;
+
+    PrimitiveArray(final byte type) {
+        this.type = type;
+        switch (type) {
+            case INT_TYPE -> ints = new int[16];
+            case LONG_TYPE -> longs = new long[16];
+            case DOUBLE_TYPE -> doubles = new double[16];
+            default -> throw new IllegalArgumentException("Unknown array type: " + type);
+        }
+    }
+
+    byte type() {
+        return type;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void push(final Number value) {
+        switch (type) {
+            case INT_TYPE -> {
+                if (length == ints.length) {
+                    ints = Arrays.copyOf(ints, length * 2);
+                }
+                ints[length] = value.intValue();
+            }
+            case LONG_TYPE -> {
+                if (length == longs.length) {
+                    longs = Arrays.copyOf(longs, length * 2);
+                }
+                longs[length] = value.longValue();
+            }
+            default -> {
+                if (length == doubles.length) {
+                    doubles = Arrays.copyOf(doubles, length * 2);
+                }
+                doubles[length] = value.doubleValue();
+            }
+        }
+        length++;
+    }
+
+    void set(final int index, final Number value) {
+        checkIndex(index);
+        switch (type) {
+            case INT_TYPE -> ints[index] = value.intValue();
+            case LONG_TYPE -> longs[index] = value.longValue();
+            default -> doubles[index] = value.doubleValue();
+        }
+    }
+
+    int getInt(final int index) {
+        checkIndex(index);
+        return ints[index];
+    }
+
+    long getLong(final int index) {
+        checkIndex(index);
+        return longs[index];
+    }
+
+    double getDouble(final int index) {
+        checkIndex(index);
+        return doubles[index];
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Array index " + index + " out of bounds for length " + length);
+        }
+    }
+}
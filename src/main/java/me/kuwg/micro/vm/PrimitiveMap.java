@@ -0,0 +1,54 @@
+package me.kuwg.micro.vm;
+
+import static me.kuwg.micro.constants.Constants.TypeConstants.LONG_TYPE;
+import static me.kuwg.micro.constants.Constants.TypeConstants.STRING_TYPE;
+
+/**
+ * A {@code PrimitiveMap} maps long or string keys to long values for the map instructions. Keys and values are kept
+ * in plain arrays with open addressing and linear probing, so lookups do not box and do not follow pointers.
+ *
+ * <p>The table is at most half full. Removing a key shifts the following entries of its probe sequence back
+ * instead of leaving a tombstone, so removals do not slow down later lookups.</p>
+ */
+abstract class PrimitiveMap {
+    protected static final int INITIAL_CAPACITY = 16;
+
+    protected int mask = INITIAL_CAPACITY - 1;
+    protected int size;
+
+    static PrimitiveMap of(final byte keyType) {
+        return switch (keyType) {
+            case LONG_TYPE -> new LongKeyMap();
+            case STRING_TYPE -> new StringKeyMap();
+            default -> throw new IllegalArgumentException("Unknown map key type: " + keyType);
+        };
+    }
+
+    abstract void put(Object key, long value);
+
+    /**
+     * Returns the value of the key, or {@code missing} if the map does not contain it.
+     */
+    abstract long get(Object key, long missing);
+
+    /**
+     * Removes the key, returning whether the map contained it.
+     */
+    abstract boolean remove(Object key);
+
+    final int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether an entry at {@code slot} whose probe sequence starts at {@code home} may be moved back into
+     * {@code hole}, that is whether the hole lies between the two.
+     */
+    protected final boolean canShift(final int home, final int hole, final int slot) {
+        return ((slot - home) & mask) >= ((slot - hole) & mask);
+    }
+
+    protected static int spread(final long hash) {
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
@@ -0,0 +1,125 @@
+package me.kuwg.micro.vm;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * Element-at-a-time implementation of the {@link VectorUnit}, used when the Vector API is not available.
+ */
+final class ScalarVectorUnit extends VectorUnit {
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle DOUBLE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+    @Override
+    void add(byte type, byte[] memory, int a, int b, int dst, int n) {
+        binary(type, memory, a, b, dst, n, Integer::sum, Long::sum, Double::sum);
+    }
+
+    @Override
+    void mul(byte type, byte[] memory, int a, int b, int dst, int n) {
+        binary(type, memory, a, b, dst, n, (x, y) -> x * y, (x, y) -> x * y, (x, y) -> x * y);
+    }
+
+    @Override
+    void fma(byte type, byte[] memory, int a, int b, int c, int dst, int n) {
+        switch (type) {
+            case INT_TYPE -> {
+                for (int i = 0; i < n; i++) {
+                    int offset = i * Integer.BYTES;
+                    int value = (int) INT.get(memory, a + offset) * (int) INT.get(memory, b + offset) + (int) INT.get(memory, c + offset);
+                    INT.set(memory, dst + offset, value);
+                }
+            }
+            case LONG_TYPE -> {
+                for (int i = 0; i < n; i++) {
+                    int offset = i * Long.BYTES;
+                    long value = (long) LONG.get(memory, a + offset) * (long) LONG.get(memory, b + offset) + (long) LONG.get(memory, c + offset);
+                    LONG.set(memory, dst + offset, value);
+                }
+            }
+            case DOUBLE_TYPE -> {
+                for (int i = 0; i < n; i++) {
+                    int offset = i * Double.BYTES;
+                    double value = Math.fma((double) DOUBLE.get(memory, a + offset), (double) DOUBLE.get(memory, b + offset), (double) DOUBLE.get(memory, c + offset));
+                    DOUBLE.set(memory, dst + offset, value);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported vector type: " + type);
+        }
+    }
+
+    @Override
+    Object sum(byte type, byte[] memory, int a, int n) {
+        return reduce(type, memory, a, n, 0, 0L, 0.0, Integer::sum, Long::sum, Double::sum);
+    }
+
+    @Override
+    Object min(byte type, byte[] memory, int a, int n) {
+        return reduce(type, memory, a, n, Integer.MAX_VALUE, Long.MAX_VALUE, Double.POSITIVE_INFINITY, Math::min, Math::min, Math::min);
+    }
+
+    @Override
+    Object max(byte type, byte[] memory, int a, int n) {
+        return reduce(type, memory, a, n, Integer.MIN_VALUE, Long.MIN_VALUE, Double.NEGATIVE_INFINITY, Math::max, Math::max, Math::max);
+    }
+
+    private static void binary(byte type, byte[] memory, int a, int b, int dst, int n,
+                               IntBinaryOperator intOp, LongBinaryOperator longOp, DoubleBinaryOperator doubleOp) {
+        switch (type) {
+            case INT_TYPE -> {
+                for (int i = 0; i < n; i++) {
+                    int offset = i * Integer.BYTES;
+                    INT.set(memory, dst + offset, intOp.applyAsInt((int) INT.get(memory, a + offset), (int) INT.get(memory, b + offset)));
+                }
+            }
+            case LONG_TYPE -> {
+                for (int i = 0; i < n; i++) {
+                    int offset = i * Long.BYTES;
+                    LONG.set(memory, dst + offset, longOp.applyAsLong((long) LONG.get(memory, a + offset), (long) LONG.get(memory, b + offset)));
+                }
+            }
+            case DOUBLE_TYPE -> {
+                for (int i = 0; i < n; i++) {
+                    int offset = i * Double.BYTES;
+                    DOUBLE.set(memory, dst + offset, doubleOp.applyAsDouble((double) DOUBLE.get(memory, a + offset), (double) DOUBLE.get(memory, b + offset)));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported vector type: " + type);
+        }
+    }
+
+    private static Object reduce(byte type, byte[] memory, int a, int n, int intIdentity, long longIdentity, double doubleIdentity,
+                                 IntBinaryOperator intOp, LongBinaryOperator longOp, DoubleBinaryOperator doubleOp) {
+        switch (type) {
+            case INT_TYPE -> {
+                int result = intIdentity;
+                for (int i = 0; i < n; i++) {
+                    result = intOp.applyAsInt(result, (int) INT.get(memory, a + i * Integer.BYTES));
+                }
+                return result;
+            }
+            case LONG_TYPE -> {
+                long result = longIdentity;
+                for (int i = 0; i < n; i++) {
+                    result = longOp.applyAsLong(result, (long) LONG.get(memory, a + i * Long.BYTES));
+                }
+                return result;
+            }
+            case DOUBLE_TYPE -> {
+                double result = doubleIdentity;
+                for (int i = 0; i < n; i++) {
+                    result = doubleOp.applyAsDouble(result, (double) DOUBLE.get(memory, a + i * Double.BYTES));
+                }
+                return result;
+            }
+            default -> throw new IllegalArgumentException("Unsupported vector type: " + type);
+        }
+    }
+}
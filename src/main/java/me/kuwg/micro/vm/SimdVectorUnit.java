@@ -0,0 +1,170 @@
+package me.kuwg.micro.vm;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * SIMD implementation of the {@link VectorUnit}, built on the Vector API. Memory is loaded as byte vectors of
+ * the preferred shape and reinterpreted as int, long or double lanes, which matches the little-endian layout
+ * of guest arrays. The elements that do not fill a whole vector are handed to the scalar unit.
+ */
+final class SimdVectorUnit extends VectorUnit {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final int STEP = BYTES.vectorByteSize();
+    private static final ScalarVectorUnit TAIL = new ScalarVectorUnit();
+
+    @Override
+    void add(byte type, byte[] memory, int a, int b, int dst, int n) {
+        binary(VectorOperators.ADD, type, memory, a, b, dst, n);
+        int done = vectorized(type, n);
+        int offset = done * width(type);
+        TAIL.add(type, memory, a + offset, b + offset, dst + offset, n - done);
+    }
+
+    @Override
+    void mul(byte type, byte[] memory, int a, int b, int dst, int n) {
+        binary(VectorOperators.MUL, type, memory, a, b, dst, n);
+        int done = vectorized(type, n);
+        int offset = done * width(type);
+        TAIL.mul(type, memory, a + offset, b + offset, dst + offset, n - done);
+    }
+
+    @Override
+    void fma(byte type, byte[] memory, int a, int b, int c, int dst, int n) {
+        int done = vectorized(type, n);
+        int end = done * width(type);
+        for (int offset = 0; offset < end; offset += STEP) {
+            switch (type) {
+                case INT_TYPE -> ints(memory, a + offset).mul(ints(memory, b + offset)).add(ints(memory, c + offset))
+                        .reinterpretAsBytes().intoArray(memory, dst + offset);
+                case LONG_TYPE -> longs(memory, a + offset).mul(longs(memory, b + offset)).add(longs(memory, c + offset))
+                        .reinterpretAsBytes().intoArray(memory, dst + offset);
+                case DOUBLE_TYPE -> doubles(memory, a + offset).fma(doubles(memory, b + offset), doubles(memory, c + offset))
+                        .reinterpretAsBytes().intoArray(memory, dst + offset);
+                default -> throw new IllegalArgumentException("Unsupported vector type: " + type);
+            }
+        }
+        TAIL.fma(type, memory, a + end, b + end, c + end, dst + end, n - done);
+    }
+
+    @Override
+    Object sum(byte type, byte[] memory, int a, int n) {
+        int done = vectorized(type, n);
+        Object tail = TAIL.sum(type, memory, a + done * width(type), n - done);
+        Object vector = reduce(VectorOperators.ADD, type, memory, a, done);
+        if (vector == null) {
+            return tail;
+        }
+
+        return switch (type) {
+            case INT_TYPE -> (int) vector + (int) tail;
+            case LONG_TYPE -> (long) vector + (long) tail;
+            default -> (double) vector + (double) tail;
+        };
+    }
+
+    @Override
+    Object min(byte type, byte[] memory, int a, int n) {
+        int done = vectorized(type, n);
+        Object tail = TAIL.min(type, memory, a + done * width(type), n - done);
+        Object vector = reduce(VectorOperators.MIN, type, memory, a, done);
+        if (vector == null) {
+            return tail;
+        }
+
+        return switch (type) {
+            case INT_TYPE -> Math.min((int) vector, (int) tail);
+            case LONG_TYPE -> Math.min((long) vector, (long) tail);
+            default -> Math.min((double) vector, (double) tail);
+        };
+    }
+
+    @Override
+    Object max(byte type, byte[] memory, int a, int n) {
+        int done = vectorized(type, n);
+        Object tail = TAIL.max(type, memory, a + done * width(type), n - done);
+        Object vector = reduce(VectorOperators.MAX, type, memory, a, done);
+        if (vector == null) {
+            return tail;
+        }
+
+        return switch (type) {
+            case INT_TYPE -> Math.max((int) vector, (int) tail);
+            case LONG_TYPE -> Math.max((long) vector, (long) tail);
+            default -> Math.max((double) vector, (double) tail);
+        };
+    }
+
+    private static void binary(VectorOperators.Binary op, byte type, byte[] memory, int a, int b, int dst, int n) {
+        int end = vectorized(type, n) * width(type);
+        for (int offset = 0; offset < end; offset += STEP) {
+            switch (type) {
+                case INT_TYPE -> ints(memory, a + offset).lanewise(op, ints(memory, b + offset))
+                        .reinterpretAsBytes().intoArray(memory, dst + offset);
+                case LONG_TYPE -> longs(memory, a + offset).lanewise(op, longs(memory, b + offset))
+                        .reinterpretAsBytes().intoArray(memory, dst + offset);
+                case DOUBLE_TYPE -> doubles(memory, a + offset).lanewise(op, doubles(memory, b + offset))
+                        .reinterpretAsBytes().intoArray(memory, dst + offset);
+                default -> throw new IllegalArgumentException("Unsupported vector type: " + type);
+            }
+        }
+    }
+
+    /**
+     * Reduces the first {@code n} elements, which must fill whole vectors. Returns {@code null} when {@code n} is 0.
+     */
+    private static Object reduce(VectorOperators.Associative op, byte type, byte[] memory, int a, int n) {
+        int end = n * width(type);
+        if (end == 0) {
+            return null;
+        }
+
+        switch (type) {
+            case INT_TYPE -> {
+                IntVector accumulator = ints(memory, a);
+                for (int offset = STEP; offset < end; offset += STEP) {
+                    accumulator = accumulator.lanewise(op, ints(memory, a + offset));
+                }
+                return accumulator.reduceLanes(op);
+            }
+            case LONG_TYPE -> {
+                LongVector accumulator = longs(memory, a);
+                for (int offset = STEP; offset < end; offset += STEP) {
+                    accumulator = accumulator.lanewise(op, longs(memory, a + offset));
+                }
+                return accumulator.reduceLanes(op);
+            }
+            case DOUBLE_TYPE -> {
+                DoubleVector accumulator = doubles(memory, a);
+                for (int offset = STEP; offset < end; offset += STEP) {
+                    accumulator = accumulator.lanewise(op, doubles(memory, a + offset));
+                }
+                return accumulator.reduceLanes(op);
+            }
+            default -> throw new IllegalArgumentException("Unsupported vector type: " + type);
+        }
+    }
+
+    private static int vectorized(byte type, int n) {
+        int lanes = STEP / width(type);
+        return n - n % lanes;
+    }
+
+    private static IntVector ints(byte[] memory, int offset) {
+        return ByteVector.fromArray(BYTES, memory, offset).reinterpretAsInts();
+    }
+
+    private static LongVector longs(byte[] memory, int offset) {
+        return ByteVector.fromArray(BYTES, memory, offset).reinterpretAsLongs();
+    }
+
+    private static DoubleVector doubles(byte[] memory, int offset) {
+        return ByteVector.fromArray(BYTES, memory, offset).reinterpretAsDoubles();
+    }
+}
@@ -0,0 +1,200 @@
+package me.kuwg.micro.vm;
+
+import java.util.Arrays;
+
+/**
+ * The {@code SlabAllocator} manages the heap of a {@link VirtualMemory}: the upper half of the memory, split into
+ * 16 KB pages. The lower half is left to programs that lay out their data by hand.
+ *
+ * <p>Requests of up to 4 KB are rounded up to a power-of-two size class, from 16 bytes to 4 KB. Each class fills
+ * its own pages by bumping a cursor, and freed blocks go on a free list of that class, kept in an {@code int[]},
+ * so that the next allocation of the class reuses them first. Larger requests take whole contiguous pages. When
+ * they are freed, their pages are marked free in the page map, where they merge with free neighbours, and a later
+ * request takes the first run of free pages that is long enough.</p>
+ *
+ * <p>The start of every live block is marked in a bitmap, which rejects frees of addresses that were never
+ * allocated or were already freed. Blocks are not cleared.</p>
+ *
+ * <p>Workers share the memory of their parent, so allocation and freeing are synchronized.</p>
+ */
+final class SlabAllocator {
+    private static final int PAGE_SHIFT = 14;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private static final int MIN_SHIFT = 4; // 16 bytes, also the granule of the allocation bitmap
+    private static final int CLASSES = 9; // 16 bytes to 4 KB
+    private static final int MAX_SMALL = 1 << (MIN_SHIFT + CLASSES - 1);
+    private static final byte FREE_PAGE = -1;
+    private static final byte LARGE_HEAD = -2;
+    private static final byte LARGE_TAIL = -3;
+
+    private final int base;
+    private final int pages;
+    private final byte[] pageClass;
+    private final int[] largePages;
+    private final long[] allocated;
+
+    private final int[][] freeLists = new int[CLASSES][];
+    private final int[] freeCounts = new int[CLASSES];
+    private final int[] cursors = new int[CLASSES];
+    private final int[] limits = new int[CLASSES];
+    private int freePageCount; // free pages below bumpPage
+    private int bumpPage;
+
+    private long bytesInUse;
+    private int blocksInUse;
+
+    SlabAllocator(int memorySize) {
+        int start = memorySize / 2;
+        this.base = (start + PAGE_SIZE - 1) & -PAGE_SIZE;
+        this.pages = Math.max(0, (memorySize - base) >> PAGE_SHIFT);
+        this.pageClass = new byte[pages];
+        this.largePages = new int[pages];
+        this.allocated = new long[(int) (((long) pages << (PAGE_SHIFT - MIN_SHIFT)) + 63 >> 6)];
+        reset();
+    }
+
+    synchronized void reset() {
+        Arrays.fill(pageClass, FREE_PAGE);
+        Arrays.fill(allocated, 0);
+        for (int i = 0; i < CLASSES; i++) {
+            freeLists[i] = new int[16];
+        }
+        Arrays.fill(freeCounts, 0);
+        Arrays.fill(cursors, 0);
+        Arrays.fill(limits, 0);
+        freePageCount = 0;
+        bumpPage = 0;
+        bytesInUse = 0;
+        blocksInUse = 0;
+    }
+
+    synchronized int allocate(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Allocation size must be positive: " + size);
+        }
+        if (size > MAX_SMALL) {
+            return allocateLarge(size);
+        }
+
+        int sizeClass = Math.max(0, 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT);
+        int blockSize = 1 << (sizeClass + MIN_SHIFT);
+        int address;
+
+        if (freeCounts[sizeClass] > 0) {
+            address = freeLists[sizeClass][--freeCounts[sizeClass]];
+        } else {
+            if (cursors[sizeClass] == limits[sizeClass]) {
+                int page = takePages(1, size);
+                pageClass[page] = (byte) sizeClass;
+                cursors[sizeClass] = pageAddress(page);
+                limits[sizeClass] = cursors[sizeClass] + PAGE_SIZE;
+            }
+            address = cursors[sizeClass];
+            cursors[sizeClass] += blockSize;
+        }
+
+        mark(address, true);
+        bytesInUse += blockSize;
+        blocksInUse++;
+        return address;
+    }
+
+    private int allocateLarge(int size) {
+        int count = (int) (((long) size + PAGE_SIZE - 1) >> PAGE_SHIFT);
+        int page = takePages(count, size);
+        pageClass[page] = LARGE_HEAD;
+        for (int i = 1; i < count; i++) {
+            pageClass[page + i] = LARGE_TAIL;
+        }
+        largePages[page] = count;
+
+        int address = pageAddress(page);
+        mark(address, true);
+        bytesInUse += (long) count << PAGE_SHIFT;
+        blocksInUse++;
+        return address;
+    }
+
+    synchronized void free(int address) {
+        if (address < base || address >= base + (pages << PAGE_SHIFT) || !isMarked(address)) {
+            throw new IllegalArgumentException("Cannot free " + address + ", it is not an allocated block.");
+        }
+        mark(address, false);
+        blocksInUse--;
+
+        int page = (address - base) >> PAGE_SHIFT;
+        byte sizeClass = pageClass[page];
+        if (sizeClass == LARGE_HEAD) {
+            int count = largePages[page];
+            Arrays.fill(pageClass, page, page + count, FREE_PAGE);
+            freePageCount += count;
+            bytesInUse -= (long) count << PAGE_SHIFT;
+            return;
+        }
+
+        if (freeCounts[sizeClass] == freeLists[sizeClass].length) {
+            freeLists[sizeClass] = Arrays.copyOf(freeLists[sizeClass], freeCounts[sizeClass] * 2);
+        }
+        freeLists[sizeClass][freeCounts[sizeClass]++] = address;
+        bytesInUse -= 1 << (sizeClass + MIN_SHIFT);
+    }
+
+    synchronized long bytesInUse() {
+        return bytesInUse;
+    }
+
+    /**
+     * Returns the first address of the heap.
+     */
+    int base() {
+        return base;
+    }
+
+    synchronized long bytesReserved() {
+        return (long) (bumpPage - freePageCount) << PAGE_SHIFT;
+    }
+
+    synchronized int blocksInUse() {
+        return blocksInUse;
+    }
+
+    /**
+     * Takes the first run of {@code count} free pages, reusing freed pages before the untouched ones at the end.
+     */
+    private int takePages(int count, int size) {
+        int run = 0;
+        for (int page = 0; page < pages; page++) {
+            if (pageClass[page] != FREE_PAGE) {
+                run = 0;
+            } else if (++run == count) {
+                int first = page - count + 1;
+                freePageCount -= Math.min(bumpPage, page + 1) - Math.min(bumpPage, first);
+                bumpPage = Math.max(bumpPage, page + 1);
+                return first;
+            }
+        }
+        throw new IllegalStateException("Out of heap memory, cannot allocate " + size + " bytes.");
+    }
+
+    private int pageAddress(int page) {
+        return base + (page << PAGE_SHIFT);
+    }
+
+    private boolean isMarked(int address) {
+        if ((address & ((1 << MIN_SHIFT) - 1)) != 0) {
+            return false;
+        }
+        int granule = (address - base) >> MIN_SHIFT;
+        return (allocated[granule >> 6] & (1L << granule)) != 0;
+    }
+
+    private void mark(int address, boolean live) {
+        int granule = (address - base) >> MIN_SHIFT;
+        if (live) {
+            allocated[granule >> 6] |= 1L << granule;
+        } else {
+            allocated[granule >> 6] &= ~(1L << granule);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package me.kuwg.micro.vm;
+
+/**
+ * A {@link PrimitiveMap} with string keys. Strings cache their hash code, so the string constants of a program are
+ * hashed only once.
+ */
+final class StringKeyMap extends PrimitiveMap {
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    @Override
+    void put(final Object key, final long value) {
+        final String string = key(key);
+        final int slot = slot(string);
+        values[slot] = value;
+        if (keys[slot] == null) {
+            keys[slot] = string;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+    }
+
+    @Override
+    long get(final Object key, final long missing) {
+        final int slot = slot(key(key));
+        return keys[slot] != null ? values[slot] : missing;
+    }
+
+    @Override
+    boolean remove(final Object key) {
+        int hole = slot(key(key));
+        if (keys[hole] == null) {
+            return false;
+        }
+
+        for (int slot = (hole + 1) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (canShift(spread(keys[slot].hashCode()) & mask, hole, slot)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the slot that holds the key, or the empty slot where it belongs.
+     */
+    private int slot(final String key) {
+        int slot = spread(key.hashCode()) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        final String[] oldKeys = keys;
+        final long[] oldValues = values;
+
+        keys = new String[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                final int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static String key(final Object key) {
+        if (!(key instanceof String string)) {
+            throw new IllegalArgumentException("Expected a string map key, instead got " + key);
+        }
+        return string;
+    }
+}
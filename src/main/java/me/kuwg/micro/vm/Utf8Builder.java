@@ -0,0 +1,105 @@
+package me.kuwg.micro.vm;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable UTF-8 byte buffer behind the string builder instructions. Lengths, offsets and comparisons are in
+ * bytes, and numbers are appended as decimal digits without going through a {@code String}.
+ */
+final class Utf8Builder {
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] bytes;
+    private int length;
+
+    Utf8Builder() {
+        this(new byte[16], 0);
+    }
+
+    private Utf8Builder(byte[] bytes, int length) {
+        this.bytes = bytes;
+        this.length = length;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void clear() {
+        length = 0;
+    }
+
+    void append(byte[] utf8) {
+        ensureCapacity(length + utf8.length);
+        System.arraycopy(utf8, 0, bytes, length, utf8.length);
+        length += utf8.length;
+    }
+
+    void append(Object value) {
+        switch (value) {
+            case String s -> append(s.getBytes(StandardCharsets.UTF_8));
+            case Double d -> append(Double.toString(d).getBytes(StandardCharsets.US_ASCII));
+            case Number n -> append(n.longValue());
+            case Boolean b -> append(b ? TRUE : FALSE);
+            default -> throw new IllegalArgumentException("Cannot append " + value.getClass().getSimpleName());
+        }
+    }
+
+    void append(long value) {
+        if (value == Long.MIN_VALUE) {
+            append(MIN_LONG); // the only value without a positive counterpart
+            return;
+        }
+
+        long magnitude = Math.abs(value);
+        int size = value < 0 ? 2 : 1;
+        for (long rest = magnitude; rest >= 10; rest /= 10) {
+            size++;
+        }
+
+        ensureCapacity(length + size);
+        int position = length + size;
+        do {
+            bytes[--position] = (byte) ('0' + magnitude % 10);
+            magnitude /= 10;
+        } while (magnitude != 0);
+        if (value < 0) {
+            bytes[--position] = '-';
+        }
+        length += size;
+    }
+
+    Utf8Builder substring(int start, int end) {
+        if (start < 0 || end < start || end > length) {
+            throw new IndexOutOfBoundsException("Substring out of bounds: " + start + " to " + end + " of " + length);
+        }
+        int size = end - start;
+        return new Utf8Builder(Arrays.copyOfRange(bytes, start, start + Math.max(size, 16)), size);
+    }
+
+    /**
+     * Compares the bytes as unsigned values, which orders UTF-8 text by code point.
+     */
+    int compare(byte[] other, int otherLength) {
+        return Integer.signum(Arrays.compareUnsigned(bytes, 0, length, other, 0, otherLength));
+    }
+
+    int compare(Utf8Builder other) {
+        return compare(other.bytes, other.length);
+    }
+
+    void println(PrintStream out) {
+        out.write(bytes, 0, length);
+        out.println();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, capacity));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package me.kuwg.micro.vm;
+
+import java.nio.ByteOrder;
+
+import static me.kuwg.micro.constants.Constants.TypeConstants.*;
+
+/**
+ * The {@code VectorUnit} executes the vector instructions over dense, untagged little-endian arrays of ints,
+ * longs or doubles stored in {@link VirtualMemory}.
+ *
+ * <p>When the {@code jdk.incubator.vector} module is available (the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}) and the platform is little-endian, the SIMD implementation is
+ * used. Otherwise, the scalar implementation runs one element at a time. Both give the same results, except for
+ * the sum of doubles: the SIMD implementation adds the lanes separately and combines them at the end, which
+ * reorders the additions and can change the last bits of the sum. The machine only passes a destination that is
+ * either one of the sources or disjoint from all of them.</p>
+ */
+abstract class VectorUnit {
+    static final VectorUnit INSTANCE = create();
+
+    abstract void add(byte type, byte[] memory, int a, int b, int dst, int n);
+
+    abstract void mul(byte type, byte[] memory, int a, int b, int dst, int n);
+
+    abstract void fma(byte type, byte[] memory, int a, int b, int c, int dst, int n);
+
+    abstract Object sum(byte type, byte[] memory, int a, int n);
+
+    abstract Object min(byte type, byte[] memory, int a, int n);
+
+    abstract Object max(byte type, byte[] memory, int a, int n);
+
+    static int width(byte type) {
+        return switch (type) {
+            case INT_TYPE -> Integer.BYTES;
+            case LONG_TYPE -> Long.BYTES;
+            case DOUBLE_TYPE -> Double.BYTES;
+            default -> throw new IllegalArgumentException("Unsupported vector type: " + type);
+        };
+    }
+
+    private static VectorUnit create() {
+        if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new SimdVectorUnit();
+            } catch (LinkageError ignored) {
+                // fall back to the scalar unit below
+            }
+        }
+        return new ScalarVectorUnit();
+    }
+}
@@ -1,14 +1,66 @@
 package me.kuwg.micro.vm;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import static me.kuwg.micro.constants.Constants.BooleanConstants.FALSE;
 import static me.kuwg.micro.constants.Constants.BooleanConstants.TRUE;
 import static me.kuwg.micro.constants.Constants.TypeConstants.*;
 
 public class VirtualMemory {
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle DOUBLE = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle HIGH_WATER;
+
+    static {
+        try {
+            HIGH_WATER = MethodHandles.lookup().findVarHandle(VirtualMemory.class, "highWater", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final byte[] memory;
+    private final SlabAllocator heap;
+    private final int heapBase; // the first address of the heap, or the size if there is none
+    private volatile int highWater; // one past the highest address written below the heap
 
     public VirtualMemory(int size) {
-        memory = new byte[size];
+        this(size, false);
+    }
+
+    /**
+     * @param heap whether the upper half of the memory is a heap for {@link #allocate(int)}.
+     */
+    public VirtualMemory(int size, boolean heap) {
+        this.memory = new byte[size];
+        this.heap = heap ? new SlabAllocator(size) : null;
+        this.heapBase = heap ? this.heap.base() : size;
+    }
+
+    public int size() {
+        return memory.length;
+    }
+
+    /**
+     * Returns one past the highest address written below the heap, the high-water mark of the memory a program
+     * lays out by hand.
+     */
+    public int bytesTouched() {
+        return highWater;
+    }
+
+    /**
+     * Returns the memory a program uses: the bytes laid out by hand below the heap and the heap pages it reserved.
+     * This is what memory quotas and monitoring count.
+     */
+    public long bytesUsed() {
+        return highWater + heapBytesReserved();
     }
 
     public void store(int address, Object data) {
@@ -42,6 +94,7 @@ public class VirtualMemory {
     private void storeByte(byte b, int address) {
         memory[address] = BYTE_TYPE; // Store type identifier
         memory[address + 1] = b; // Store byte directly
+        touch(address, address + 2);
     }
 
     private void storeInt(int i, int address) {
@@ -49,11 +102,8 @@ public class VirtualMemory {
             throw new IndexOutOfBoundsException("Not enough space to store an integer at address: " + address);
         }
         memory[address] = INT_TYPE; // Store type identifier
-        // Store integer as 4 bytes
-        memory[address + 1] = (byte) (i & 0xFF);
-        memory[address + 2] = (byte) ((i >> 8) & 0xFF);
-        memory[address + 3] = (byte) ((i >> 16) & 0xFF);
-        memory[address + 4] = (byte) ((i >> 24) & 0xFF);
+        INT.set(memory, address + 1, i); // Store integer as 4 little-endian bytes
+        touch(address, address + 1 + Integer.BYTES);
     }
 
     private void storeLong(long l, int address) {
@@ -61,10 +111,8 @@ public class VirtualMemory {
             throw new IndexOutOfBoundsException("Not enough space to store a long at address: " + address);
         }
         memory[address] = LONG_TYPE; // Store type identifier
-        // Store long as 8 bytes
-        for (int i = 0; i < 8; i++) {
-            memory[address + 1 + i] = (byte) ((l >> (i * 8)) & 0xFF);
-        }
+        LONG.set(memory, address + 1, l); // Store long as 8 little-endian bytes
+        touch(address, address + 1 + Long.BYTES);
     }
 
     private void storeDouble(double d, int address) {
@@ -72,25 +120,27 @@ public class VirtualMemory {
             throw new IndexOutOfBoundsException("Not enough space to store a double at address: " + address);
         }
         memory[address] = DOUBLE_TYPE; // Store type identifier
-        long longBits = Double.doubleToRawLongBits(d);
-        storeLong(longBits, address + 1); // Store double as long
+        DOUBLE.set(memory, address + 1, d); // Store double as its 8 raw little-endian bytes
+        touch(address, address + 1 + Double.BYTES);
     }
 
     private void storeString(String s, int address) {
-        byte[] stringBytes = s.getBytes();
-        if (address + 1 + stringBytes.length >= memory.length) {
+        byte[] stringBytes = s.getBytes(StandardCharsets.UTF_8);
+        if (stringBytes.length > memory.length - address - 1 - Integer.BYTES) {
             throw new IndexOutOfBoundsException("Not enough space to store a string at address: " + address);
         }
         memory[address] = STRING_TYPE; // Store type identifier
-        // Store the length of the string as the first byte after type identifier
-        memory[address + 1] = (byte) stringBytes.length;
-        // Store the string bytes
-        System.arraycopy(stringBytes, 0, memory, address + 2, stringBytes.length);
+        // Store the length of the string as 4 little-endian bytes after the type identifier
+        INT.set(memory, address + 1, stringBytes.length);
+        // Store the UTF-8 bytes
+        System.arraycopy(stringBytes, 0, memory, address + 1 + Integer.BYTES, stringBytes.length);
+        touch(address, address + 1 + Integer.BYTES + stringBytes.length);
     }
 
     private void storeBoolean(boolean b, int address) {
         memory[address] = BOOLEAN_TYPE; // Store type identifier
         memory[address + 1] = b ? TRUE : FALSE; // Store byte directly
+        touch(address, address + 2);
     }
 
     public Object load(int address) {
@@ -115,31 +165,223 @@ public class VirtualMemory {
     }
 
     private int loadInt(int address) {
-        return (memory[address + 1] & 0xFF) | ((memory[address + 2] & 0xFF) << 8) |
-                ((memory[address + 3] & 0xFF) << 16) | ((memory[address + 4] & 0xFF) << 24);
+        return (int) INT.get(memory, address + 1);
     }
 
     private long loadLong(int address) {
-        long result = 0;
-        for (int i = 0; i < 8; i++) {
-            result |= ((long) (memory[address + 1 + i] & 0xFF)) << (i * 8);
-        }
-        return result;
+        return (long) LONG.get(memory, address + 1);
     }
 
     private double loadDouble(int address) {
-        long longBits = loadLong(address);
-        return Double.longBitsToDouble(longBits);
+        return (double) DOUBLE.get(memory, address + 1);
     }
 
     private String loadString(int address) {
-        int length = memory[address + 1]; // The first byte after type identifier indicates the length
-        byte[] stringBytes = new byte[length];
-        System.arraycopy(memory, address + 2, stringBytes, 0, length); // Copy the string bytes
-        return new String(stringBytes);
+        int length = (int) INT.get(memory, address + 1); // The 4 bytes after type identifier hold the length
+        return new String(memory, address + 1 + Integer.BYTES, length, StandardCharsets.UTF_8);
     }
 
     private boolean loadBoolean(int address) {
         return memory[address + 1] == TRUE;
     }
+
+    public void store(int address, byte b) {
+        checkRegion(address, 2);
+        storeByte(b, address);
+    }
+
+    public void store(int address, int i) {
+        checkRegion(address, 1 + Integer.BYTES);
+        storeInt(i, address);
+    }
+
+    public void store(int address, long l) {
+        checkRegion(address, 1 + Long.BYTES);
+        storeLong(l, address);
+    }
+
+    public void store(int address, double d) {
+        checkRegion(address, 1 + Double.BYTES);
+        storeDouble(d, address);
+    }
+
+    // Raw accessors: untagged little-endian values, no type switch and no boxing
+
+    public byte getByte(int address) {
+        checkRegion(address, Byte.BYTES);
+        return memory[address];
+    }
+
+    public int getInt(int address) {
+        checkRegion(address, Integer.BYTES);
+        return (int) INT.get(memory, address);
+    }
+
+    public long getLong(int address) {
+        checkRegion(address, Long.BYTES);
+        return (long) LONG.get(memory, address);
+    }
+
+    public double getDouble(int address) {
+        checkRegion(address, Double.BYTES);
+        return (double) DOUBLE.get(memory, address);
+    }
+
+    public void putByte(int address, byte value) {
+        checkRegion(address, Byte.BYTES);
+        memory[address] = value;
+        touch(address, address + Byte.BYTES);
+    }
+
+    public void putInt(int address, int value) {
+        checkRegion(address, Integer.BYTES);
+        INT.set(memory, address, value);
+        touch(address, address + Integer.BYTES);
+    }
+
+    public void putLong(int address, long value) {
+        checkRegion(address, Long.BYTES);
+        LONG.set(memory, address, value);
+        touch(address, address + Long.BYTES);
+    }
+
+    public void putDouble(int address, double value) {
+        checkRegion(address, Double.BYTES);
+        DOUBLE.set(memory, address, value);
+        touch(address, address + Double.BYTES);
+    }
+
+    // Atomic accessors: raw little-endian values at naturally aligned addresses, safe to share between workers
+
+    public boolean compareAndSetInt(int address, int expected, int value) {
+        checkAligned(address, Integer.BYTES);
+        touch(address, address + Integer.BYTES);
+        return INT.compareAndSet(memory, address, expected, value);
+    }
+
+    public boolean compareAndSetLong(int address, long expected, long value) {
+        checkAligned(address, Long.BYTES);
+        touch(address, address + Long.BYTES);
+        return LONG.compareAndSet(memory, address, expected, value);
+    }
+
+    public int getAndAddInt(int address, int delta) {
+        checkAligned(address, Integer.BYTES);
+        touch(address, address + Integer.BYTES);
+        return (int) INT.getAndAdd(memory, address, delta);
+    }
+
+    public long getAndAddLong(int address, long delta) {
+        checkAligned(address, Long.BYTES);
+        touch(address, address + Long.BYTES);
+        return (long) LONG.getAndAdd(memory, address, delta);
+    }
+
+    // Heap: the upper half of memory, managed by a slab allocator
+
+    public int allocate(int size) {
+        return heap().allocate(size);
+    }
+
+    public void free(int address) {
+        heap().free(address);
+    }
+
+    public void resetHeap() {
+        if (heap != null) {
+            heap.reset();
+        }
+    }
+
+    public long heapBytesInUse() {
+        return heap == null ? 0 : heap.bytesInUse();
+    }
+
+    public long heapBytesReserved() {
+        return heap == null ? 0 : heap.bytesReserved();
+    }
+
+    public int heapBlocksInUse() {
+        return heap == null ? 0 : heap.blocksInUse();
+    }
+
+    private SlabAllocator heap() {
+        if (heap == null) {
+            throw new IllegalStateException("This memory has no heap.");
+        }
+        return heap;
+    }
+
+    public ByteBuffer slice(int address, int length) {
+        checkRegion(address, length);
+        touch(address, address + length); // the buffer may be written to
+        return ByteBuffer.wrap(memory, address, length);
+    }
+
+    public void copy(int source, int destination, int length) {
+        checkRegion(source, length);
+        checkRegion(destination, length);
+        System.arraycopy(memory, source, memory, destination, length); // overlapping regions are handled
+        touch(destination, destination + length);
+    }
+
+    public void fill(int address, byte value, int length) {
+        checkRegion(address, length);
+        Arrays.fill(memory, address, address + length, value);
+        touch(address, address + length);
+    }
+
+    public int compare(int left, int right, int length) {
+        checkRegion(left, length);
+        checkRegion(right, length);
+        int index = Arrays.mismatch(memory, left, left + length, memory, right, right + length);
+        if (index == -1) {
+            return 0;
+        }
+        return Integer.compare(memory[left + index] & 0xFF, memory[right + index] & 0xFF);
+    }
+
+    VirtualMemory duplicate() {
+        VirtualMemory copy = new VirtualMemory(memory.length);
+        System.arraycopy(memory, 0, copy.memory, 0, memory.length);
+        copy.highWater = highWater;
+        return copy;
+    }
+
+    /**
+     * Records a write to {@code [start, end)}. Only the region below the heap is counted here, since the heap is
+     * accounted for by the blocks it has reserved. Workers share their parent's memory, so the mark only ever
+     * moves up through a compare-and-set.
+     */
+    void touch(int start, int end) {
+        if (start >= heapBase) {
+            return;
+        }
+        final int mark = Math.min(end, heapBase);
+        int current = (int) HIGH_WATER.getOpaque(this);
+        while (mark > current) {
+            final int witness = (int) HIGH_WATER.compareAndExchange(this, current, mark);
+            if (witness == current) {
+                return;
+            }
+            current = witness;
+        }
+    }
+
+    byte[] bytes() {
+        return memory;
+    }
+
+    void checkRegion(int address, int length) {
+        if (address < 0 || length < 0 || length > memory.length - address) {
+            throw new IndexOutOfBoundsException("Region out of bounds: " + address + " + " + length);
+        }
+    }
+
+    private void checkAligned(int address, int width) {
+        checkRegion(address, width);
+        if (address % width != 0) {
+            throw new IllegalArgumentException("Atomic access must be " + width + "-byte aligned: " + address);
+        }
+    }
 }
\ No newline at end of file